@@ -2,7 +2,6 @@ package edu.neumont.csc150.controller;
 
 import edu.neumont.csc150.model.Muffin;
 import edu.neumont.csc150.model.Player;
-import edu.neumont.csc150.model.colliders.HitBox;
 import edu.neumont.csc150.model.enums.SceneType;
 import edu.neumont.csc150.model.goblins.Goblin;
 import edu.neumont.csc150.model.misc.AudioPlayer;
@@ -13,9 +12,6 @@ import edu.neumont.csc150.model.projectiles.ProjectileManager;
 import edu.neumont.csc150.service.*;
 import javafx.scene.input.KeyCode;
 
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
-
 public final class GameController implements OnSceneChange {
     private Thread gameLoop;
     private final UserInput inputService;
@@ -145,25 +141,21 @@ public final class GameController implements OnSceneChange {
         if (player == null) return;
 
         player.update();
-        LinkedList<Goblin> goblinSnapshot = new LinkedList<>(Map.getGoblins());
-        for (Goblin goblin : goblinSnapshot) {
-            if (player == null) break;
+        // Nothing is removed until the collision callbacks below, so these can be iterated directly
+        for (Goblin goblin : Map.getGoblins())
             goblin.update(player.getPosition());
-        }
 
-        LinkedHashSet<Muffin> muffinSnapshot = new LinkedHashSet<>(Map.getMuffins());
-        for (Muffin muffin : muffinSnapshot) {
-            if (player == null) break;
-            muffin.update(player.getPosition());
+        // Muffins can still despawn on their own thread
+        synchronized (Map.getMuffins()) {
+            for (Muffin muffin : Map.getMuffins())
+                muffin.update(player.getPosition());
         }
 
-        for (HitBox trigger : Map.getTriggerColliders())
-            trigger.getCollision(player.getCollider());
-
         if (Map.getSirHoly() != null)
             Map.getSirHoly().update(player.getPosition());
 
         projectileManager.update();
+        collisionService.updateContacts();
 
         configService.updateDeltaTime();
     }
@@ -37,11 +37,12 @@ public final class InitController {
         stage.setScene(scene);
         stage.show();
 
+        ConfigService configService = new ConfigService();
         injectables = new Injectable[]{
                 new UserInput(scene),
-                new ConfigService(),
+                configService,
                 new ColorService(),
-                new CollisionService(),
+                new CollisionService(configService),
                 new SceneService(),
                 new SoundService()
         };
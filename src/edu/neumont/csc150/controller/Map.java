@@ -2,6 +2,7 @@ package edu.neumont.csc150.controller;
 
 import edu.neumont.csc150.model.Muffin;
 import edu.neumont.csc150.model.SirHoly;
+import edu.neumont.csc150.model.colliders.BoxCollider;
 import edu.neumont.csc150.model.colliders.HitBox;
 import edu.neumont.csc150.model.colliders.SphereCollider;
 import edu.neumont.csc150.model.enums.CollisionLayer;
@@ -12,16 +13,16 @@ import edu.neumont.csc150.model.Wall;
 import edu.neumont.csc150.model.colliders.SpriteCollider;
 import edu.neumont.csc150.model.goblins.GoblinPaladin;
 import edu.neumont.csc150.model.goblins.GoblinRanger;
-import edu.neumont.csc150.model.misc.Quadtree;
+import edu.neumont.csc150.model.misc.BinarySpacePartition;
+import edu.neumont.csc150.model.misc.PotentiallyVisibleSet;
 import edu.neumont.csc150.model.misc.Vector3;
 import edu.neumont.csc150.service.*;
 
-import java.awt.Rectangle;
 import java.util.*;
 
 public final class Map {
     private static final Random rand = new Random();
-    private static final Quadtree quadtree = new Quadtree(1, new Rectangle(-75, -75, 150, 150));
+    private static BinarySpacePartition wallTree;
     private static Wall[] walls = new Wall[0];
     private static HitBox[] triggerColliders = new HitBox[0];
     private static SpriteCollider[] images = new SpriteCollider[0];
@@ -41,13 +42,17 @@ public final class Map {
 
     public static void clearLevel() {
         loadingLevel = true;
-        quadtree.clear();
+        wallTree = null;
+        collisionService.setWallTree(null);
+        collisionService.setVisibleSet(null);
         for (Wall wall : walls)
             collisionService.removeHitBox(wall.getBoxCollider());
 
         for (SpriteCollider image : images)
             collisionService.removeHitBox(image);
 
+        images = new SpriteCollider[0];
+
         synchronized (goblins) {
             LinkedList<Goblin> snapshot = new LinkedList<>(goblins);
             snapshot.forEach(Goblin::kill);
@@ -251,9 +256,14 @@ public final class Map {
             }
         }
 
-        for (Wall wall : walls)
-            quadtree.insert(wall.getBoxCollider());
+        BoxCollider[] wallColliders = new BoxCollider[walls.length];
+        for (int i = 0; i < walls.length; i++)
+            wallColliders[i] = walls[i].getBoxCollider();
 
+        wallTree = new BinarySpacePartition(wallColliders);
+        collisionService.setWallTree(wallTree);
+        collisionService.setVisibleSet(new PotentiallyVisibleSet(wallColliders, images, configService.visibilityCellSize));
+        collisionService.buildBoundingVolumes();
         loadingLevel = false;
     }
 
@@ -290,11 +300,22 @@ public final class Map {
         }
     }
 
+    /** Every wall close enough along the ground that it could be touching the HitBox */
     public static List<HitBox> getWalls(HitBox checkOn) {
-        List<HitBox> foundWalls = new LinkedList<>();
-        quadtree.retrieve(foundWalls, checkOn);
-
-        return foundWalls;
+        BinarySpacePartition tree = wallTree;
+        if (tree == null) return new LinkedList<>();
+
+        Set<HitBox> foundWalls = new LinkedHashSet<>();
+        float[] bounds = new float[6];
+        checkOn.getBounds(bounds, 0);
+        tree.findWalls(
+                (bounds[0] + bounds[3]) / 2,
+                (bounds[2] + bounds[5]) / 2,
+                (float) Math.hypot(bounds[3] - bounds[0], bounds[5] - bounds[2]) / 2,
+                foundWalls
+        );
+
+        return new LinkedList<>(foundWalls);
     }
 
     public static HitBox[] getTriggerColliders() {
@@ -23,7 +23,8 @@ public final class RenderController implements OnSceneChange {
     private final SoundService soundService;
     private boolean shutdownThread = false;
     private final SceneWrapper sceneWrapper = new SceneWrapper();
-    public static boolean[] workersFinished;
+    /** The hands the overlay's coverage was worked out for, so the same ones are drawn over it */
+    private String handImage;
 
     // region Cutscene
     private Thread cutsceneThread;
@@ -58,7 +59,6 @@ public final class RenderController implements OnSceneChange {
         sceneService.addOnSceneChange(this);
         renderer = new SceneRenderer(configService.screenWidth, configService.screenHeight, color, collision, config);
         overlay = new Overlay(color, config);
-        workersFinished = new boolean[configService.sceneWorkerThreadCount];
 
         youThoughtYouCouldBeatMe = soundService.create(
                 "assets/audio/end cutscene/You Thought You Could Beat Me.wav",
@@ -80,15 +80,21 @@ public final class RenderController implements OnSceneChange {
         renderThread = new Thread(() -> {
             synchronized (this) {
                 while (!shutdownThread) {
-                    if (frameRendered()) {
-                        drawOverlay(sceneWrapper);
-                        renderer.endDrawing();
-                        renderer.clearBackground(new Color(Console.TextColor.WHITE), (byte) 0);
-                        Arrays.fill(workersFinished, false);
-                    }
+                    long frameStart = System.currentTimeMillis();
+
+                    renderer.beginFrame();
+                    coverOverlay(sceneWrapper);
+                    renderer.renderScene();
+                    drawOverlay(sceneWrapper);
+                    renderer.endDrawing();
+                    renderer.clearBackground(new Color(Console.TextColor.WHITE), (byte) 0);
+
+                    // Sleep for whatever is left of the frame instead of spinning
+                    long frameTime = System.currentTimeMillis() - frameStart;
+                    long remainingTime = 1000 / configService.framesPerSecond - frameTime;
 
                     try {
-                        this.wait(1000 / configService.framesPerSecond);
+                        this.wait(Math.max(1, remainingTime));
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                         throw new RuntimeException(e);
@@ -97,7 +103,6 @@ public final class RenderController implements OnSceneChange {
             }
         });
 
-        renderer.initializeWorkerThreads(workersFinished);
         renderThread.start();
     }
 
@@ -105,6 +110,7 @@ public final class RenderController implements OnSceneChange {
     public void sceneChangeEvent(SceneType scene) {
         renderer.clearBackground(new Color(Console.TextColor.WHITE), (byte) 0);
         renderer.endDrawing();
+        renderer.selectRenderMode(scene);
         sceneWrapper.scene = scene;
 
         if (scene == SceneType.INTRO_CUTSCENE) {
@@ -154,6 +160,23 @@ public final class RenderController implements OnSceneChange {
         renderer.shutdownPool();
     }
 
+    /** Works out which cells the gameplay overlay will draw over, before the scene is traced */
+    private void coverOverlay(SceneWrapper wrapper) {
+        boolean[][] coverage = renderer.getOverlayCoverage();
+        for (boolean[] row : coverage)
+            Arrays.fill(row, false);
+
+        handImage = GameController.getPlayer() == null ? null : GameController.getPlayer().getHandState();
+        if (!configService.overlayCulling || handImage == null) return;
+
+        switch (wrapper.scene) {
+            case FIRST_FLOOR, SECOND_FLOOR, GALLERY, BOSS_ROOM -> {
+                overlay.coverPlayerHud(coverage, handImage);
+            }
+            default -> {}
+        }
+    }
+
     private void drawOverlay(SceneWrapper wrapper) {
         switch (wrapper.scene) {
             case TITLE -> {
@@ -171,8 +194,7 @@ public final class RenderController implements OnSceneChange {
             }
             case FIRST_FLOOR, SECOND_FLOOR, GALLERY, BOSS_ROOM -> {
                 if (GameController.getPlayer() == null) break;
-                overlay.drawHealth(0.25f, 0.75f, GameController.getPlayer().remainingHealth());
-                overlay.displayImage(0.5f, 0.5f, 2, 1, GameController.getPlayer().getHandState());
+                overlay.drawPlayerHud(GameController.getPlayer().remainingHealth(), handImage);
             }
             case GAME_OVER -> {
                 overlay.displayImage(imageXPosition, imageYPosition, 2, 1, cutsceneImageDisplayed);
@@ -325,12 +347,4 @@ public final class RenderController implements OnSceneChange {
         if (cutsceneThread != null && !cutsceneThread.isInterrupted())
             cutsceneThread.interrupt();
     }
-
-    private boolean frameRendered() {
-        for (boolean finished : workersFinished) {
-            if (!finished) return false;
-        }
-
-        return true;
-    }
 }
@@ -1,5 +1,6 @@
 package edu.neumont.csc150.model;
 
+import edu.neumont.csc150.controller.GameController;
 import edu.neumont.csc150.controller.Map;
 import edu.neumont.csc150.model.colliders.CollisionEvent;
 import edu.neumont.csc150.model.colliders.HitBox;
@@ -91,8 +92,10 @@ public class Muffin implements CollisionEvent {
         collider.setPosition(position);
     }
 
+    /** The player only picks the muffin up when they can be hit, the same check the player makes */
     @Override
     public void collisionCallback(HitBox hitBox) {
-        removeMuffin();
+        Player player = GameController.getPlayer();
+        if (player != null && player.canBeHit()) removeMuffin();
     }
 }
@@ -116,7 +116,6 @@ public class Player implements CollisionEvent {
     }
 
     public void update() {
-        checkCollisionContinuous();
         camera.setPosition(move());
         camera.setRotation(rotate());
         castFireBolt();
@@ -125,11 +124,9 @@ public class Player implements CollisionEvent {
     private void castFireBolt() {
         if (inputService.getLeftMouse() == null) return;
         if (canCast && !isJumping && inputService.getLeftMouse().isPrimaryButtonDown()) {
-            synchronized (collisionService.getHitBoxes()) {
-                new FireBolt(position.subtract(new Vector3(0, 1, 0)), camera.forward());
-                fireBoltSound.play();
-                showHandAnimation();
-            }
+            new FireBolt(position.subtract(new Vector3(0, 1, 0)), camera.forward());
+            fireBoltSound.play();
+            showHandAnimation();
 
             canCast = false;
             startFireBoltTimer();
@@ -144,18 +141,6 @@ public class Player implements CollisionEvent {
         }
     }
 
-    private void checkCollisionContinuous() {
-        if (!invincible && !isJumping) {
-            HitInfo<HitBox> hit = collider.getCollision();
-            if (hit != null) {
-                if (hit.getCollision().containsCollisionLayer(CollisionLayer.MUFFIN)) {
-                    holdingMuffin = true;
-                    handState = HandState.MUFFIN_IDLE;
-                }
-            }
-        }
-    }
-
     private void takeHit() {
         health -= rand.nextFloat() + 0.5f;
 
@@ -328,9 +313,13 @@ public class Player implements CollisionEvent {
 
     @Override
     public void collisionCallback(HitBox hitBox) {
-        if (!invincible && !isJumping) {
+        if (canBeHit()) {
             if (hitBox != null && hitBox.containsCollisionLayer(CollisionLayer.PROJECTILE_ENEMY))
                 takeHit();
+            else if (hitBox != null && hitBox.containsCollisionLayer(CollisionLayer.MUFFIN)) {
+                holdingMuffin = true;
+                handState = HandState.MUFFIN_IDLE;
+            }
         }
 
         if (hitBox != null && hitBox.containsCollisionLayer(CollisionLayer.TRIGGER)) {
@@ -339,6 +328,11 @@ public class Player implements CollisionEvent {
         }
     }
 
+    /** Enemies and muffins only touch the player while this is true */
+    public boolean canBeHit() {
+        return !invincible && !isJumping;
+    }
+
     public Vector3 getPosition() {
         return new Vector3(position);
     }
@@ -8,6 +8,9 @@ public non-sealed class BoxCollider extends HitBox {
     private final Vector3[] verts = new Vector3[8];
     private final Vector3[] originalVerts = new Vector3[8];
     private final Vector3[][] quads = new Vector3[6][4];
+    /** The box's local x, y and z axes as unit vectors, stored as x, y, z for each axis */
+    private final float[] axes = new float[9];
+    private final float[] halfExtents = new float[3];
     private Vector3 scale = new Vector3(1, 1, 1);
     /** In radians*/
     private float rotation;
@@ -53,6 +56,28 @@ public non-sealed class BoxCollider extends HitBox {
         quads[3] = new Vector3[]{ verts[0], verts[3], verts[7], verts[4] };
         quads[4] = new Vector3[]{ verts[0], verts[1], verts[5], verts[4] };
         quads[5] = new Vector3[]{ verts[3], verts[2], verts[6], verts[7] };
+
+        updateAxes();
+    }
+
+    /** The axes come from the verts, so they always match where the box actually is */
+    private void updateAxes() {
+        // The edges leaving verts[0] go along the local x, y and z axes
+        Vector3[] ends = { verts[1], verts[3], verts[4] };
+
+        for (int axis = 0; axis < 3; axis++) {
+            float x = ends[axis].x - verts[0].x;
+            float y = ends[axis].y - verts[0].y;
+            float z = ends[axis].z - verts[0].z;
+            float length = (float) Math.sqrt(x * x + y * y + z * z);
+
+            halfExtents[axis] = length / 2;
+            if (length == 0) length = 1;
+
+            axes[axis * 3] = x / length;
+            axes[axis * 3 + 1] = y / length;
+            axes[axis * 3 + 2] = z / length;
+        }
     }
 
     public Vector3[] getVerts() {
@@ -65,6 +90,11 @@ public non-sealed class BoxCollider extends HitBox {
         return quads.clone();
     }
 
+    @Override
+    public void getBounds(float[] bounds, int offset) {
+        getBounds(verts, bounds, offset);
+    }
+
     private void updateVerts() {
         verts[0].x = position.x - scale.x / 2; verts[0].y = position.y - scale.y / 2; verts[0].z = position.z - scale.z / 2;
         verts[1].x = position.x + scale.x / 2; verts[1].y = position.y - scale.y / 2; verts[1].z = position.z - scale.z / 2;
@@ -83,12 +113,15 @@ public non-sealed class BoxCollider extends HitBox {
         originalVerts[5].x = +scale.x / 2; originalVerts[5].y = -scale.y / 2; originalVerts[5].z = +scale.z / 2;
         originalVerts[6].x = +scale.x / 2; originalVerts[6].y = +scale.y / 2; originalVerts[6].z = +scale.z / 2;
         originalVerts[7].x = -scale.x / 2; originalVerts[7].y = +scale.y / 2; originalVerts[7].z = +scale.z / 2;
+
+        updateAxes();
     }
 
     @Override
     public void setPosition(Vector3 position) {
         this.position = position;
         updateVerts();
+        markGeometryChanged();
     }
 
     public Vector3 getScale() {
@@ -98,6 +131,7 @@ public non-sealed class BoxCollider extends HitBox {
     public void setScale(Vector3 scale) {
         this.scale = scale;
         updateVerts();
+        markGeometryChanged();
     }
 
     public float getRotation() {
@@ -115,38 +149,41 @@ public non-sealed class BoxCollider extends HitBox {
             vert.x = (float) (oX * Math.cos(this.rotation) - oZ * Math.sin(this.rotation) + position.x);
             vert.z = (float) (oX * Math.sin(this.rotation) + oZ * Math.cos(this.rotation) + position.z);
         }
+
+        updateAxes();
+        markGeometryChanged();
     }
 
-    /** Returns all positive normals to the surface of the rectangle */
-    public Vector3[] getNormals() {
-        Vector3 localX = quads[2][2].subtract(quads[2][0]).cross(quads[2][1].subtract(quads[2][0]));
-        Vector3 localY = quads[5][2].subtract(quads[5][0]).cross(quads[5][1].subtract(quads[5][0]));
-        Vector3 localZ = localX.cross(localY);
+    /** Component is 0 for x, 1 for y and 2 for z of one of the box's local axes */
+    public float getAxis(int axis, int component) {
+        return axes[axis * 3 + component];
+    }
 
-        localX = localX.normalize();
-        localY = localY.normalize();
-        localZ = localZ.normalize();
+    /** Half of the box's size along one of its local axes */
+    public float getHalfExtent(int axis) {
+        return halfExtents[axis];
+    }
 
-        return new Vector3[]{ localX, localY, localZ };
+    /** Returns all positive normals to the surface of the rectangle */
+    public Vector3[] getNormals() {
+        return new Vector3[]{ getAxis(0), getAxis(1), getAxis(2) };
     }
 
     /** Returns all surface normals of the rectangle, even the negative ones */
     public Vector3[] getAllNormals() {
-        Vector3 localX = quads[2][2].subtract(quads[2][0]).cross(quads[2][1].subtract(quads[2][0]));
-        Vector3 localY = quads[5][2].subtract(quads[5][0]).cross(quads[5][1].subtract(quads[5][0]));
-        Vector3 localZ = localX.cross(localY);
-
-        localX = localX.normalize();
-        localY = localY.normalize();
-        localZ = localZ.normalize();
+        Vector3[] normals = getNormals();
 
         return new Vector3[]{
-                localX,
-                localY,
-                localZ,
-                localX.scale(-1),
-                localY.scale(-1),
-                localZ.scale(-1)
+                normals[0],
+                normals[1],
+                normals[2],
+                normals[0].scale(-1),
+                normals[1].scale(-1),
+                normals[2].scale(-1)
         };
     }
+
+    private Vector3 getAxis(int axis) {
+        return new Vector3(axes[axis * 3], axes[axis * 3 + 1], axes[axis * 3 + 2]);
+    }
 }
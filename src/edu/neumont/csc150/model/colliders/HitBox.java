@@ -8,24 +8,23 @@ import edu.neumont.csc150.service.CollisionService;
 import edu.neumont.csc150.service.Injectable;
 import edu.neumont.csc150.view.Console;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 public sealed abstract class HitBox permits BoxCollider, SphereCollider, SpriteCollider {
     protected CollisionService collisionService;
     private CollisionEvent event;
     protected Vector3 position = Vector3.zero();
     protected Color color = new Color(Console.TextColor.WHITE);
-    protected final Set<RenderLayer> renderLayers = new HashSet<>();
+    /** A bit for each RenderLayer, see RenderLayer.mask */
+    protected int renderLayerMask;
     /**
-     * Layers that this hitbox can detect and collide with
+     * Layers that this hitbox can detect and collide with, a bit for each CollisionLayer
      */
-    protected final Set<CollisionLayer> canCollideWithLayers = new HashSet<>();
+    protected int canCollideWithMask;
     /**
-     * Layers that this hitbox can be hit on
+     * Layers that this hitbox can be hit on, a bit for each CollisionLayer
      */
-    protected final Set<CollisionLayer> collisionLayers = new HashSet<>();
+    protected int collisionLayerMask;
+    /** Set whenever the shape moves, so the packed geometry knows to rewrite it */
+    private volatile boolean geometryChanged = true;
 
     protected HitBox(CollisionEvent event, Injectable collision) {
         collisionService = (CollisionService) collision;
@@ -42,14 +41,9 @@ public sealed abstract class HitBox permits BoxCollider, SphereCollider, SpriteC
     ) {
         this(event, collision);
 
-        if (renderLayers != null)
-            this.renderLayers.addAll(Arrays.asList(renderLayers));
-
-        if (canCollideWith != null)
-            this.canCollideWithLayers.addAll(Arrays.asList(canCollideWith));
-
-        if (collisionLayers != null)
-            this.collisionLayers.addAll(Arrays.asList(collisionLayers));
+        renderLayerMask = RenderLayer.maskOf(renderLayers);
+        canCollideWithMask = CollisionLayer.maskOf(canCollideWith);
+        collisionLayerMask = CollisionLayer.maskOf(collisionLayers);
     }
 
     public HitInfo<HitBox> getCollision() {
@@ -70,7 +64,7 @@ public sealed abstract class HitBox permits BoxCollider, SphereCollider, SpriteC
 
     public HitInfo<HitBox> getCollision(HitBox compareTo) {
         if (compareTo == null) return null;
-        if (compareTo.getCollisionLayers()[0] == CollisionLayer.NONE) return null;
+        if (compareTo.containsCollisionLayer(CollisionLayer.NONE)) return null;
 
         if (compareTo instanceof BoxCollider boxCollider) {
             HitInfo<BoxCollider> boxHit = getCollision(boxCollider);
@@ -125,39 +119,73 @@ public sealed abstract class HitBox permits BoxCollider, SphereCollider, SpriteC
     }
 
     public boolean containsRenderLayer(RenderLayer renderLayer) {
-        return renderLayers.contains(renderLayer);
+        return (renderLayerMask & renderLayer.mask) != 0;
     }
 
     public boolean containsRenderLayer(RenderLayer[] renderLayers) {
-        for (RenderLayer renderLayer : renderLayers) {
-            if (containsRenderLayer(renderLayer)) return true;
-        }
-
-        return false;
+        return (renderLayerMask & RenderLayer.maskOf(renderLayers)) != 0;
     }
 
     public boolean containsCollisionLayer(CollisionLayer collisionLayer) {
-        return collisionLayers.contains(collisionLayer);
+        return (collisionLayerMask & collisionLayer.mask) != 0;
     }
 
     public boolean containsCollisionLayer(CollisionLayer[] collisionLayers) {
-        for (CollisionLayer collisionLayer : collisionLayers) {
-            if (containsCollisionLayer(collisionLayer)) return true;
-        }
+        return containsCollisionLayer(CollisionLayer.maskOf(collisionLayers));
+    }
 
-        return false;
+    /** True if this is on any of the layers in the mask */
+    public boolean containsCollisionLayer(int layerMask) {
+        return (collisionLayerMask & layerMask) != 0;
     }
 
     public boolean canCollideWithLayer(CollisionLayer collisionLayer) {
-        return canCollideWithLayers.contains(collisionLayer);
+        return (canCollideWithMask & collisionLayer.mask) != 0;
     }
 
     public boolean canCollideWithLayer(CollisionLayer[] collisionLayers) {
-        for (CollisionLayer collisionLayer : collisionLayers) {
-            if (canCollideWithLayer(collisionLayer)) return true;
+        return canCollideWithLayer(CollisionLayer.maskOf(collisionLayers));
+    }
+
+    /** True if this can collide with any of the layers in the mask */
+    public boolean canCollideWithLayer(int layerMask) {
+        return (canCollideWithMask & layerMask) != 0;
+    }
+
+    /** True if this can collide with any of the other HitBox's layers */
+    public boolean canCollideWith(HitBox hitBox) {
+        return (canCollideWithMask & hitBox.collisionLayerMask) != 0;
+    }
+
+    /** Writes the axis aligned bounds as minX, minY, minZ, maxX, maxY, maxZ starting at offset */
+    public abstract void getBounds(float[] bounds, int offset);
+
+    /** Fits axis aligned bounds around the vertices, used by colliders made out of quads */
+    protected static void getBounds(Vector3[] verts, float[] bounds, int offset) {
+        bounds[offset] = bounds[offset + 1] = bounds[offset + 2] = Float.MAX_VALUE;
+        bounds[offset + 3] = bounds[offset + 4] = bounds[offset + 5] = -Float.MAX_VALUE;
+
+        for (Vector3 vert : verts) {
+            bounds[offset] = Math.min(bounds[offset], vert.x);
+            bounds[offset + 1] = Math.min(bounds[offset + 1], vert.y);
+            bounds[offset + 2] = Math.min(bounds[offset + 2], vert.z);
+            bounds[offset + 3] = Math.max(bounds[offset + 3], vert.x);
+            bounds[offset + 4] = Math.max(bounds[offset + 4], vert.y);
+            bounds[offset + 5] = Math.max(bounds[offset + 5], vert.z);
         }
+    }
+
+    protected void markGeometryChanged() {
+        geometryChanged = true;
+        collisionService.hitBoxMoved(this);
+    }
+
+    /** Returns if the shape changed since the last time this was called, and clears it */
+    public boolean takeGeometryChanged() {
+        if (!geometryChanged) return false;
 
-        return false;
+        geometryChanged = false;
+        return true;
     }
 
     public void callback(HitBox hitBox) {
@@ -172,6 +200,7 @@ public sealed abstract class HitBox permits BoxCollider, SphereCollider, SpriteC
 
     public void setPosition(Vector3 position) {
         this.position = position;
+        markGeometryChanged();
     }
 
     public void setColor(Console.TextColor color) {
@@ -187,14 +216,26 @@ public sealed abstract class HitBox permits BoxCollider, SphereCollider, SpriteC
     }
 
     public RenderLayer[] getRenderLayers() {
-        return renderLayers.toArray(new RenderLayer[0]);
+        return RenderLayer.fromMask(renderLayerMask);
     }
 
     public CollisionLayer[] getLayersCanCollideWith() {
-        return canCollideWithLayers.toArray(new CollisionLayer[0]);
+        return CollisionLayer.fromMask(canCollideWithMask);
     }
 
     public CollisionLayer[] getCollisionLayers() {
-        return collisionLayers.toArray(new CollisionLayer[0]);
+        return CollisionLayer.fromMask(collisionLayerMask);
+    }
+
+    public int getRenderLayerMask() {
+        return renderLayerMask;
+    }
+
+    public int getCanCollideWithMask() {
+        return canCollideWithMask;
+    }
+
+    public int getCollisionLayerMask() {
+        return collisionLayerMask;
     }
 }
@@ -27,5 +27,16 @@ public non-sealed class SphereCollider extends HitBox {
 
     public void setRadius(float radius) {
         this.radius = radius;
+        markGeometryChanged();
+    }
+
+    @Override
+    public void getBounds(float[] bounds, int offset) {
+        bounds[offset] = position.x - radius;
+        bounds[offset + 1] = position.y - radius;
+        bounds[offset + 2] = position.z - radius;
+        bounds[offset + 3] = position.x + radius;
+        bounds[offset + 4] = position.y + radius;
+        bounds[offset + 5] = position.z + radius;
     }
 }
@@ -2,17 +2,17 @@ package edu.neumont.csc150.model.colliders;
 
 import edu.neumont.csc150.model.enums.*;
 import edu.neumont.csc150.model.misc.Color;
+import edu.neumont.csc150.model.misc.Texture;
 import edu.neumont.csc150.model.misc.Vector3;
 import edu.neumont.csc150.service.ColorService;
 import edu.neumont.csc150.service.Injectable;
 import edu.neumont.csc150.view.Console;
-import javafx.scene.image.Image;
 
 public non-sealed class SpriteCollider extends HitBox {
     private final ColorService colorService;
     private final Vector3[] verts = new Vector3[4];
     private final Vector3[] originalVerts = new Vector3[4];
-    private Image image;
+    private Texture image;
     private Vector3 scale = new Vector3(1, 1, 1);
     public boolean showImage = true;
     /** In radians*/
@@ -20,8 +20,8 @@ public non-sealed class SpriteCollider extends HitBox {
 
     public SpriteCollider(Injectable collision, Injectable color, String imageURL) {
         super(null, collision);
-        collisionLayers.add(CollisionLayer.NONE);
-        canCollideWithLayers.add(CollisionLayer.NONE);
+        collisionLayerMask = CollisionLayer.NONE.mask;
+        canCollideWithMask = CollisionLayer.NONE.mask;
         this.colorService = (ColorService) color;
         image = colorService.loadImage(imageURL);
         initializeVertices();
@@ -100,14 +100,42 @@ public non-sealed class SpriteCollider extends HitBox {
     public void setPosition(Vector3 position) {
         this.position = position;
         updateVerts();
+        markGeometryChanged();
     }
 
     public Color getColor(float x, float y) {
-        if (image == null || !showImage) return null;
+        return getColor(getImage(), x, y);
+    }
+
+    /**
+     * Samples a specific image, used when the sprite's image was copied for a frame.
+     * Returns null where the image is transparent
+     */
+    public Color getColor(Texture image, float x, float y) {
+        long color = sample(image, x, y);
+        if (color == Texture.TRANSPARENT) return null;
+
+        return colorService.getColor(color);
+    }
+
+    /**
+     * Samples a specific image without making a Color, for the renderers
+     *
+     * @return Returns the color packed like a character in the frame,
+     * or Texture.TRANSPARENT where the image is transparent or its color can't be drawn
+     */
+    public long sample(Texture image, float x, float y) {
+        if (image == null) return Texture.TRANSPARENT;
+
+        long color = image.sample(x, y);
+        return colorService.canDraw(color) ? color : Texture.TRANSPARENT;
+    }
+
+    /** Returns null while the image is hidden */
+    public Texture getImage() {
+        if (!showImage) return null;
 
-        int xCoordinate = (int) ((x / 2 + 0.5f) * image.getWidth());
-        int yCoordinate = (int) ((y / 2 + 0.5f) * image.getHeight());
-        return colorService.getColorAtPoint(image, xCoordinate, yCoordinate);
+        return image;
     }
 
     @Override
@@ -127,6 +155,7 @@ public non-sealed class SpriteCollider extends HitBox {
     public void setScale(Vector3 scale) {
         this.scale = scale;
         updateVerts();
+        markGeometryChanged();
     }
 
     public Vector3[] getVerts() {
@@ -135,6 +164,11 @@ public non-sealed class SpriteCollider extends HitBox {
         return verts.clone();
     }
 
+    @Override
+    public void getBounds(float[] bounds, int offset) {
+        getBounds(verts, bounds, offset);
+    }
+
     public float getRotation() {
         return (float) Math.toDegrees(rotation);
     }
@@ -150,5 +184,7 @@ public non-sealed class SpriteCollider extends HitBox {
             vert.x = (float) (oX * Math.cos(this.rotation) - oZ * Math.sin(this.rotation) + position.x);
             vert.z = (float) (oX * Math.sin(this.rotation) + oZ * Math.cos(this.rotation) + position.z);
         }
+
+        markGeometryChanged();
     }
 }
@@ -1,5 +1,7 @@
 package edu.neumont.csc150.model.enums;
 
+import java.util.Arrays;
+
 public enum CollisionLayer {
     PLAYER,
     ENEMIES,
@@ -8,5 +10,26 @@ public enum CollisionLayer {
     PROJECTILE_ENEMY,
     MUFFIN,
     TRIGGER,
-    NONE
+    NONE;
+
+    /** The bit this layer uses in a layer mask */
+    public final int mask = 1 << ordinal();
+
+    /** Combines the layers into one mask, null gives an empty mask */
+    public static int maskOf(CollisionLayer[] layers) {
+        int mask = 0;
+        if (layers == null) return mask;
+
+        for (CollisionLayer layer : layers)
+            mask |= layer.mask;
+
+        return mask;
+    }
+
+    /** Every layer whose bit is set in the mask */
+    public static CollisionLayer[] fromMask(int mask) {
+        return Arrays.stream(values())
+                .filter(layer -> (mask & layer.mask) != 0)
+                .toArray(CollisionLayer[]::new);
+    }
 }
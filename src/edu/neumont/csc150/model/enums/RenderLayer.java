@@ -1,6 +1,29 @@
 package edu.neumont.csc150.model.enums;
 
+import java.util.Arrays;
+
 public enum RenderLayer {
     COLLISION_ONLY,
-    RENDER_ONLY
+    RENDER_ONLY;
+
+    /** The bit this layer uses in a layer mask */
+    public final int mask = 1 << ordinal();
+
+    /** Combines the layers into one mask, null gives an empty mask */
+    public static int maskOf(RenderLayer[] layers) {
+        int mask = 0;
+        if (layers == null) return mask;
+
+        for (RenderLayer layer : layers)
+            mask |= layer.mask;
+
+        return mask;
+    }
+
+    /** Every layer whose bit is set in the mask */
+    public static RenderLayer[] fromMask(int mask) {
+        return Arrays.stream(values())
+                .filter(layer -> (mask & layer.mask) != 0)
+                .toArray(RenderLayer[]::new);
+    }
 }
@@ -0,0 +1,10 @@
+package edu.neumont.csc150.model.enums;
+
+public enum RenderMode {
+    /** Traces a 3D ray for every cell on the screen */
+    RAYCAST,
+    /** Traces walls once per column, only works when every box stands upright */
+    COLUMNS,
+    /** Scan converts every visible quad into the frame instead of tracing rays */
+    RASTER
+}
@@ -6,8 +6,6 @@ import edu.neumont.csc150.model.colliders.*;
 import edu.neumont.csc150.model.enums.*;
 import edu.neumont.csc150.model.misc.AudioPlayer;
 import edu.neumont.csc150.model.misc.Vector3;
-import edu.neumont.csc150.model.misc.raycast.HitInfo;
-import edu.neumont.csc150.model.misc.raycast.Raycast;
 import edu.neumont.csc150.service.*;
 
 import java.util.Timer;
@@ -101,12 +99,9 @@ public sealed abstract class Goblin implements CollisionEvent permits GoblinPala
             new Muffin(getPosition().subtract(new Vector3(0, 1, 0)), collisionService, colorService);
     }
 
+    /** Only walls block a goblin's sight of the player */
     protected boolean canSeePlayer(Vector3 playerPosition) {
-        Raycast raycast = new Raycast(getPosition(), playerPosition.subtract(getPosition()));
-        HitInfo<HitBox> hit = collisionService.raycastHit(raycast,
-                new CollisionLayer[]{ CollisionLayer.ENVIRONMENT, CollisionLayer.PLAYER }
-        );
-        return hit != null && hit.getCollision().containsCollisionLayer(CollisionLayer.PLAYER);
+        return !collisionService.isBlockedByWalls(getPosition(), playerPosition);
     }
 
     protected void setImage(String imageURL) {
@@ -0,0 +1,339 @@
+package edu.neumont.csc150.model.misc;
+
+import edu.neumont.csc150.model.colliders.BoxCollider;
+import edu.neumont.csc150.model.colliders.HitBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A 2D binary space partitioning tree over the edges of every wall's footprint.
+ * <br>
+ * Walls only ever rotate around Y, so from above a level is just a set of line segments.
+ * Each node splits the ground along the line of one of those segments, and segments crossing
+ * that line are cut in two. A ray visits the side of each line it starts on first,
+ * so the walls it crosses are always reached from nearest to furthest.
+ */
+public class BinarySpacePartition {
+    /** How many segments are tried as the line to split each node on */
+    private final int SPLITTER_CANDIDATES = 8;
+    /** Segments closer than this to a line count as lying on it */
+    private final float EPSILON = 1e-4f;
+
+    /** Called for every wall edge a ray crosses, in order from nearest to furthest */
+    @FunctionalInterface
+    public interface RayVisitor {
+        /**
+         * @param wall The wall's index, in the order the walls were given
+         * @param distance How far along the ray it crossed the edge, in units of the ray's direction
+         * @param maxDistance The furthest distance currently worth visiting
+         * @return Returns the furthest distance still worth visiting, anything past it is skipped
+         */
+        float visit(int wall, float distance, float maxDistance);
+    }
+
+    private record Segment(float x1, float z1, float x2, float z2, int wall) {}
+
+    private final BoxCollider[] walls;
+    /** Stored as minY, maxY for each wall */
+    private final float[] wallHeights;
+
+    /** Stored as the normal's x, z and the offset of each node's line */
+    private float[] nodeLines = new float[0];
+    /** The child on the side the normal points to and the one behind it, -1 for none */
+    private int[] nodeFront = new int[0];
+    private int[] nodeBack = new int[0];
+    /** The segments lying on each node's line */
+    private int[] nodeSegmentStart = new int[0];
+    private int[] nodeSegmentCount = new int[0];
+    private int nodeCount;
+    /** Stored as x1, z1, x2, z2 for each segment, grouped by node */
+    private float[] segments = new float[0];
+    private int[] segmentWalls = new int[0];
+    private int segmentCount;
+    private int root = -1;
+
+    /** Builds the tree, this should only happen when a level loads since walls can't move afterwards */
+    public BinarySpacePartition(BoxCollider[] walls) {
+        this.walls = walls.clone();
+        wallHeights = new float[walls.length * 2];
+
+        List<Segment> edges = new ArrayList<>();
+        float[] bounds = new float[6];
+
+        for (int wall = 0; wall < walls.length; wall++) {
+            walls[wall].getBounds(bounds, 0);
+            wallHeights[wall * 2] = bounds[1];
+            wallHeights[wall * 2 + 1] = bounds[4];
+
+            // The bottom 4 corners, in order around the box
+            Vector3[] verts = walls[wall].getVerts();
+            Vector3[] footprint = { verts[0], verts[1], verts[5], verts[4] };
+
+            for (int corner = 0; corner < 4; corner++) {
+                Vector3 from = footprint[corner];
+                Vector3 to = footprint[(corner + 1) % 4];
+                if (from.x == to.x && from.z == to.z) continue;
+
+                edges.add(new Segment(from.x, from.z, to.x, to.z, wall));
+            }
+        }
+
+        nodeLines = new float[Math.max(1, edges.size()) * 3];
+        nodeFront = new int[Math.max(1, edges.size())];
+        nodeBack = new int[nodeFront.length];
+        nodeSegmentStart = new int[nodeFront.length];
+        nodeSegmentCount = new int[nodeFront.length];
+        segments = new float[edges.size() * 4];
+        segmentWalls = new int[edges.size()];
+
+        if (!edges.isEmpty()) root = build(edges);
+    }
+
+    public int size() {
+        return walls.length;
+    }
+
+    public BoxCollider getWall(int wall) {
+        return walls[wall];
+    }
+
+    /**
+     * Visits every wall edge a 2D ray along the ground crosses, nearest first.
+     * A wall is visited once for each of its edges the ray crosses.
+     */
+    public void raycast(float originX, float originZ, float directionX, float directionZ, float maxDistance, RayVisitor visitor) {
+        traverse(root, originX, originZ, directionX, directionZ, 0, maxDistance, maxDistance, visitor);
+    }
+
+    /**
+     * True if any wall is between the two points.
+     * The line only counts as blocked where it crosses the side of a wall between its bottom and top
+     */
+    public boolean isBlocked(Vector3 from, Vector3 to) {
+        boolean[] blocked = new boolean[1];
+        float rise = to.y - from.y;
+
+        raycast(from.x, from.z, to.x - from.x, to.z - from.z, 1, (wall, distance, maxDistance) -> {
+            float y = from.y + rise * distance;
+            if (y < wallHeights[wall * 2] || y > wallHeights[wall * 2 + 1]) return maxDistance;
+
+            blocked[0] = true;
+            return -1;
+        });
+
+        return blocked[0];
+    }
+
+    /** Adds every wall with an edge closer to the point along the ground than the radius */
+    public void findWalls(float x, float z, float radius, Collection<HitBox> foundWalls) {
+        findWalls(root, x, z, radius, foundWalls);
+    }
+
+    // region Building
+    private int build(List<Segment> edges) {
+        Segment splitter = chooseSplitter(edges);
+        float[] line = line(splitter);
+
+        List<Segment> onLine = new ArrayList<>();
+        List<Segment> front = new ArrayList<>();
+        List<Segment> back = new ArrayList<>();
+
+        for (Segment segment : edges) {
+            float start = distance(line, segment.x1(), segment.z1());
+            float end = distance(line, segment.x2(), segment.z2());
+
+            if (Math.abs(start) <= EPSILON && Math.abs(end) <= EPSILON) onLine.add(segment);
+            else if (start >= -EPSILON && end >= -EPSILON) front.add(segment);
+            else if (start <= EPSILON && end <= EPSILON) back.add(segment);
+            else {
+                float lerp = start / (start - end);
+                float splitX = segment.x1() + (segment.x2() - segment.x1()) * lerp;
+                float splitZ = segment.z1() + (segment.z2() - segment.z1()) * lerp;
+                Segment first = new Segment(segment.x1(), segment.z1(), splitX, splitZ, segment.wall());
+                Segment second = new Segment(splitX, splitZ, segment.x2(), segment.z2(), segment.wall());
+
+                // Cutting right next to an end can leave a piece too short to have a direction
+                if (length(first) > EPSILON) (start > 0 ? front : back).add(first);
+                if (length(second) > EPSILON) (start > 0 ? back : front).add(second);
+            }
+        }
+
+        int node = nodeCount++;
+        growNodes();
+        System.arraycopy(line, 0, nodeLines, node * 3, 3);
+
+        nodeSegmentStart[node] = segmentCount;
+        nodeSegmentCount[node] = onLine.size();
+        for (Segment segment : onLine)
+            addSegment(segment);
+
+        // Building the children can grow the arrays, so they're only stored afterwards
+        int frontChild = front.isEmpty() ? -1 : build(front);
+        int backChild = back.isEmpty() ? -1 : build(back);
+        nodeFront[node] = frontChild;
+        nodeBack[node] = backChild;
+        return node;
+    }
+
+    /** Picks the candidate that cuts the fewest segments, and splits the rest most evenly */
+    private Segment chooseSplitter(List<Segment> edges) {
+        Segment best = edges.getFirst();
+        int bestScore = Integer.MAX_VALUE;
+        int step = Math.max(1, edges.size() / SPLITTER_CANDIDATES);
+
+        for (int candidate = 0; candidate < edges.size(); candidate += step) {
+            float[] line = line(edges.get(candidate));
+            int front = 0;
+            int back = 0;
+            int splits = 0;
+
+            for (Segment segment : edges) {
+                float start = distance(line, segment.x1(), segment.z1());
+                float end = distance(line, segment.x2(), segment.z2());
+
+                if (start >= -EPSILON && end >= -EPSILON) front++;
+                else if (start <= EPSILON && end <= EPSILON) back++;
+                else splits++;
+            }
+
+            int score = splits * 3 + Math.abs(front - back);
+            if (score < bestScore) {
+                bestScore = score;
+                best = edges.get(candidate);
+            }
+        }
+
+        return best;
+    }
+
+    private void addSegment(Segment segment) {
+        if (segmentCount == segmentWalls.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 8);
+            segmentWalls = Arrays.copyOf(segmentWalls, segmentCount * 2);
+        }
+
+        segments[segmentCount * 4] = segment.x1();
+        segments[segmentCount * 4 + 1] = segment.z1();
+        segments[segmentCount * 4 + 2] = segment.x2();
+        segments[segmentCount * 4 + 3] = segment.z2();
+        segmentWalls[segmentCount] = segment.wall();
+        segmentCount++;
+    }
+
+    /** Splitting can make more nodes than there were edges, so the arrays grow as needed */
+    private void growNodes() {
+        if (nodeCount <= nodeFront.length) return;
+
+        int capacity = nodeFront.length * 2;
+        nodeLines = Arrays.copyOf(nodeLines, capacity * 3);
+        nodeFront = Arrays.copyOf(nodeFront, capacity);
+        nodeBack = Arrays.copyOf(nodeBack, capacity);
+        nodeSegmentStart = Arrays.copyOf(nodeSegmentStart, capacity);
+        nodeSegmentCount = Arrays.copyOf(nodeSegmentCount, capacity);
+    }
+
+    /** The line through a segment as a unit normal and an offset */
+    private float[] line(Segment segment) {
+        float edgeX = segment.x2() - segment.x1();
+        float edgeZ = segment.z2() - segment.z1();
+        float length = (float) Math.hypot(edgeX, edgeZ);
+        float normalX = -edgeZ / length;
+        float normalZ = edgeX / length;
+
+        return new float[]{ normalX, normalZ, normalX * segment.x1() + normalZ * segment.z1() };
+    }
+
+    private float length(Segment segment) {
+        return (float) Math.hypot(segment.x2() - segment.x1(), segment.z2() - segment.z1());
+    }
+
+    private float distance(float[] line, float x, float z) {
+        return line[0] * x + line[1] * z - line[2];
+    }
+    // endregion
+
+    // region Queries
+    /**
+     * @param end Where this part of the ray ends, the ray is split at every line it crosses
+     * @return Returns the furthest distance still worth visiting
+     */
+    private float traverse(
+            int node,
+            float originX,
+            float originZ,
+            float directionX,
+            float directionZ,
+            float start,
+            float end,
+            float maxDistance,
+            RayVisitor visitor
+    ) {
+        if (node < 0 || start > maxDistance) return maxDistance;
+
+        int line = node * 3;
+        float side = nodeLines[line] * originX + nodeLines[line + 1] * originZ - nodeLines[line + 2];
+        float rate = nodeLines[line] * directionX + nodeLines[line + 1] * directionZ;
+        int near = side >= 0 ? nodeFront[node] : nodeBack[node];
+        int far = side >= 0 ? nodeBack[node] : nodeFront[node];
+
+        // Where the ray crosses this node's line, it never does if it runs along or away from it
+        float crossing = rate == 0 ? -1 : -side / rate;
+        if (crossing <= 0 || crossing > Math.min(end, maxDistance))
+            return traverse(near, originX, originZ, directionX, directionZ, start, end, maxDistance, visitor);
+
+        if (crossing < start)
+            return traverse(far, originX, originZ, directionX, directionZ, start, end, maxDistance, visitor);
+
+        maxDistance = traverse(near, originX, originZ, directionX, directionZ, start, crossing, maxDistance, visitor);
+        if (crossing > maxDistance) return maxDistance;
+
+        float crossX = originX + directionX * crossing;
+        float crossZ = originZ + directionZ * crossing;
+
+        for (int segment = nodeSegmentStart[node]; segment < nodeSegmentStart[node] + nodeSegmentCount[node]; segment++) {
+            int offset = segment * 4;
+            float edgeX = segments[offset + 2] - segments[offset];
+            float edgeZ = segments[offset + 3] - segments[offset + 1];
+            float along = ((crossX - segments[offset]) * edgeX + (crossZ - segments[offset + 1]) * edgeZ) /
+                    (edgeX * edgeX + edgeZ * edgeZ);
+
+            if (along < -EPSILON || along > 1 + EPSILON) continue;
+
+            maxDistance = visitor.visit(segmentWalls[segment], crossing, maxDistance);
+            if (crossing > maxDistance) return maxDistance;
+        }
+
+        return traverse(far, originX, originZ, directionX, directionZ, crossing, end, maxDistance, visitor);
+    }
+
+    private void findWalls(int node, float x, float z, float radius, Collection<HitBox> foundWalls) {
+        if (node < 0) return;
+
+        int line = node * 3;
+        float side = nodeLines[line] * x + nodeLines[line + 1] * z - nodeLines[line + 2];
+
+        if (side < radius) findWalls(nodeBack[node], x, z, radius, foundWalls);
+        if (side > -radius) findWalls(nodeFront[node], x, z, radius, foundWalls);
+        if (Math.abs(side) > radius) return;
+
+        for (int segment = nodeSegmentStart[node]; segment < nodeSegmentStart[node] + nodeSegmentCount[node]; segment++) {
+            if (segmentDistance(segment, x, z) <= radius)
+                foundWalls.add(walls[segmentWalls[segment]]);
+        }
+    }
+
+    private float segmentDistance(int segment, float x, float z) {
+        int offset = segment * 4;
+        float edgeX = segments[offset + 2] - segments[offset];
+        float edgeZ = segments[offset + 3] - segments[offset + 1];
+        float along = ((x - segments[offset]) * edgeX + (z - segments[offset + 1]) * edgeZ) /
+                (edgeX * edgeX + edgeZ * edgeZ);
+        along = Math.max(0, Math.min(1, along));
+
+        return (float) Math.hypot(x - segments[offset] - edgeX * along, z - segments[offset + 1] - edgeZ * along);
+    }
+    // endregion
+}
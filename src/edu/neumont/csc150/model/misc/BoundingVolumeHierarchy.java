@@ -0,0 +1,278 @@
+package edu.neumont.csc150.model.misc;
+
+import edu.neumont.csc150.model.colliders.HitBox;
+import edu.neumont.csc150.model.misc.raycast.HitInfo;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A bounding volume hierarchy over every registered HitBox.
+ * <br>
+ * It is built once when a level loads and refit every frame, so moving colliders
+ * only update their bounds instead of rebuilding the tree. Raycasts visit the
+ * nearest child first and skip anything further than the closest hit so far.
+ */
+public class BoundingVolumeHierarchy {
+    private final int MAX_LEAF_SIZE = 2;
+
+    private HitBox[] hitBoxes = new HitBox[0];
+    /** Stored as minX, minY, minZ, maxX, maxY, maxZ for each node */
+    private float[] nodeBounds = new float[0];
+    /** For branches this is the left child (the right child is always next to it),
+     * for leaves this is the first HitBox */
+    private int[] nodeStart = new int[0];
+    /** Amount of HitBoxes in a leaf, 0 for branches */
+    private int[] nodeSize = new int[0];
+    private int nodeCount;
+
+    /** The test run against every HitBox in the leaves a raycast reaches, by its index in the hierarchy */
+    @FunctionalInterface
+    public interface RaycastTest {
+        HitInfo<HitBox> test(int collider, float nearestDistance);
+    }
+
+    public BoundingVolumeHierarchy() {}
+
+    /** Copies the hierarchy as it is right now, later refits won't change the copy */
+    public BoundingVolumeHierarchy(BoundingVolumeHierarchy hierarchy) {
+        // build() always allocates new arrays and refit() only writes the bounds,
+        // so everything except the bounds can be shared
+        hitBoxes = hierarchy.hitBoxes;
+        nodeBounds = hierarchy.nodeBounds.clone();
+        nodeStart = hierarchy.nodeStart;
+        nodeSize = hierarchy.nodeSize;
+        nodeCount = hierarchy.nodeCount;
+    }
+
+    /** Build the tree from scratch, this should happen whenever colliders are added or removed */
+    public void build(Collection<HitBox> colliders) {
+        hitBoxes = colliders.toArray(new HitBox[0]);
+        int maxNodes = Math.max(1, 2 * hitBoxes.length - 1);
+        nodeBounds = new float[maxNodes * 6];
+        nodeStart = new int[maxNodes];
+        nodeSize = new int[maxNodes];
+        nodeCount = 0;
+
+        if (hitBoxes.length == 0) return;
+
+        float[] colliderBounds = new float[hitBoxes.length * 6];
+        for (int i = 0; i < hitBoxes.length; i++)
+            hitBoxes[i].getBounds(colliderBounds, i * 6);
+
+        Integer[] order = new Integer[hitBoxes.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+
+        nodeCount = 1;
+        split(0, 0, order.length, order, colliderBounds);
+
+        HitBox[] sorted = new HitBox[hitBoxes.length];
+        for (int i = 0; i < order.length; i++)
+            sorted[i] = hitBoxes[order[i]];
+
+        hitBoxes = sorted;
+        refit();
+    }
+
+    /** Update the bounds of every node without changing the shape of the tree */
+    public void refit() {
+        float[] bounds = new float[6];
+
+        // Children are always created after their parents, so walking backwards visits them first
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int offset = node * 6;
+
+            if (nodeSize[node] > 0) {
+                resetBounds(offset);
+
+                for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++) {
+                    hitBoxes[i].getBounds(bounds, 0);
+                    growBounds(offset, bounds, 0);
+                }
+            } else {
+                int left = nodeStart[node];
+                System.arraycopy(nodeBounds, left * 6, nodeBounds, offset, 6);
+                growBounds(offset, nodeBounds, (left + 1) * 6);
+            }
+        }
+    }
+
+    /**
+     * Finds the nearest hit along the raycast.
+     *
+     * @return Returns the closest "HitInfo" that the test returned.
+     * Returns "null" if nothing was hit
+     */
+    public HitInfo<HitBox> raycast(Vector3 position, Vector3 direction, float maxDistance, RaycastTest test) {
+        return raycast(position, direction.x, direction.y, direction.z, maxDistance, test);
+    }
+
+    /** Takes the direction as floats, so a ray read out of a SceneSnapshot doesn't need a Vector3 */
+    public HitInfo<HitBox> raycast(
+            Vector3 position,
+            float directionX,
+            float directionY,
+            float directionZ,
+            float maxDistance,
+            RaycastTest test
+    ) {
+        if (nodeCount == 0) return null;
+
+        float[] origin = { position.x, position.y, position.z };
+        float[] inverseDirection = { 1 / directionX, 1 / directionY, 1 / directionZ };
+
+        if (entryDistance(0, origin, inverseDirection) > maxDistance) return null;
+
+        return traverse(0, maxDistance, origin, inverseDirection, test, null);
+    }
+
+    public int size() {
+        return hitBoxes.length;
+    }
+
+    /** True if both were copied from the same build, so every HitBox has the same index in both */
+    public boolean hasSameHitBoxes(BoundingVolumeHierarchy hierarchy) {
+        return hitBoxes == hierarchy.hitBoxes;
+    }
+
+    public HitBox getHitBox(int collider) {
+        return hitBoxes[collider];
+    }
+
+    private HitInfo<HitBox> traverse(
+            int node,
+            float maxDistance,
+            float[] origin,
+            float[] inverseDirection,
+            RaycastTest test,
+            HitInfo<HitBox> nearest
+    ) {
+        if (nodeSize[node] > 0) {
+            for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++) {
+                float nearestDistance = nearest == null ? Float.MAX_VALUE : nearest.getDistance();
+                HitInfo<HitBox> hit = test.test(i, nearestDistance);
+
+                if (hit != null && hit.getDistance() < nearestDistance)
+                    nearest = hit;
+            }
+
+            return nearest;
+        }
+
+        int near = nodeStart[node];
+        int far = near + 1;
+        float nearDistance = entryDistance(near, origin, inverseDirection);
+        float farDistance = entryDistance(far, origin, inverseDirection);
+
+        if (farDistance < nearDistance) {
+            int swapNode = near;
+            near = far;
+            far = swapNode;
+
+            float swapDistance = nearDistance;
+            nearDistance = farDistance;
+            farDistance = swapDistance;
+        }
+
+        if (nearDistance <= maxDistance(maxDistance, nearest))
+            nearest = traverse(near, maxDistance, origin, inverseDirection, test, nearest);
+
+        if (farDistance <= maxDistance(maxDistance, nearest))
+            nearest = traverse(far, maxDistance, origin, inverseDirection, test, nearest);
+
+        return nearest;
+    }
+
+    private float maxDistance(float maxDistance, HitInfo<HitBox> nearest) {
+        if (nearest == null) return maxDistance;
+
+        return Math.min(maxDistance, nearest.getDistance());
+    }
+
+    /**
+     * Slab test against a node's box
+     *
+     * @return the distance the ray enters the box, or Float.MAX_VALUE if it misses
+     */
+    private float entryDistance(int node, float[] origin, float[] inverseDirection) {
+        int offset = node * 6;
+        float tMin = 0;
+        float tMax = Float.MAX_VALUE;
+
+        for (int axis = 0; axis < 3; axis++) {
+            float min = nodeBounds[offset + axis];
+            float max = nodeBounds[offset + axis + 3];
+
+            if (Float.isInfinite(inverseDirection[axis])) {
+                if (origin[axis] < min || origin[axis] > max) return Float.MAX_VALUE;
+                continue;
+            }
+
+            float t1 = (min - origin[axis]) * inverseDirection[axis];
+            float t2 = (max - origin[axis]) * inverseDirection[axis];
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+
+            if (tMin > tMax) return Float.MAX_VALUE;
+        }
+
+        return tMin;
+    }
+
+    private void split(int node, int start, int end, Integer[] order, float[] colliderBounds) {
+        if (end - start <= MAX_LEAF_SIZE) {
+            nodeStart[node] = start;
+            nodeSize[node] = end - start;
+            return;
+        }
+
+        // Split on the longest axis of the colliders' centers
+        float[] centerMin = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE };
+        float[] centerMax = { -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+        for (int i = start; i < end; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                float center = center(colliderBounds, order[i], axis);
+                centerMin[axis] = Math.min(centerMin[axis], center);
+                centerMax[axis] = Math.max(centerMax[axis], center);
+            }
+        }
+
+        int splitAxis = 0;
+        for (int axis = 1; axis < 3; axis++) {
+            if (centerMax[axis] - centerMin[axis] > centerMax[splitAxis] - centerMin[splitAxis])
+                splitAxis = axis;
+        }
+
+        int axis = splitAxis;
+        Arrays.sort(order, start, end, (a, b) ->
+                Float.compare(center(colliderBounds, a, axis), center(colliderBounds, b, axis)));
+
+        int middle = (start + end) / 2;
+        int left = nodeCount;
+        nodeCount += 2;
+        nodeStart[node] = left;
+        nodeSize[node] = 0;
+
+        split(left, start, middle, order, colliderBounds);
+        split(left + 1, middle, end, order, colliderBounds);
+    }
+
+    private float center(float[] colliderBounds, int collider, int axis) {
+        return (colliderBounds[collider * 6 + axis] + colliderBounds[collider * 6 + axis + 3]) / 2;
+    }
+
+    private void resetBounds(int offset) {
+        for (int axis = 0; axis < 3; axis++) {
+            nodeBounds[offset + axis] = Float.MAX_VALUE;
+            nodeBounds[offset + axis + 3] = -Float.MAX_VALUE;
+        }
+    }
+
+    private void growBounds(int offset, float[] bounds, int boundsOffset) {
+        for (int axis = 0; axis < 3; axis++) {
+            nodeBounds[offset + axis] = Math.min(nodeBounds[offset + axis], bounds[boundsOffset + axis]);
+            nodeBounds[offset + axis + 3] = Math.max(nodeBounds[offset + axis + 3], bounds[boundsOffset + axis + 3]);
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package edu.neumont.csc150.model.misc;
 
-import edu.neumont.csc150.model.enums.CollisionLayer;
-import edu.neumont.csc150.model.enums.RenderLayer;
-import edu.neumont.csc150.model.misc.raycast.Raycast;
 import edu.neumont.csc150.service.ConfigService;
 import edu.neumont.csc150.service.Injectable;
 
@@ -10,19 +7,32 @@ public class Camera {
     private final float FOV = 90.0f;
     private final float FOV_RAD = (float) Math.toRadians(FOV);
     private final float ASPECT_RATIO;
+    public final float RAY_DISTANCE = 32;
 
     private Vector3 position = Vector3.zero();
     /** In radians */
     private float rotation;
-    public Raycast[][] rays;
+    private final int rows;
+    private final int columns;
+    /** The up and down part of each row's rays, these never change */
+    private final float[] rowOffsets;
+    /** The sideways part of each column's rays before the camera is rotated, these never change */
+    private final float[] columnOffsets;
+    /** Stored as x, y, z for each ray, row by row. Every ray starts at the camera's position */
+    private final float[] rayDirections;
     private final ConfigService configService;
 
     public Camera(Injectable config) {
         configService = (ConfigService) config;
-        rays = new Raycast[configService.screenHeight][configService.screenWidth];
-        ASPECT_RATIO = (float) configService.screenWidth / (3 * configService.screenHeight);
+        rows = configService.screenHeight;
+        columns = configService.screenWidth;
+        rowOffsets = new float[rows];
+        columnOffsets = new float[columns];
+        rayDirections = new float[rows * columns * 3];
+        ASPECT_RATIO = (float) columns / (3 * rows);
 
-        calculateRays(true);
+        calculateOffsets();
+        calculateRays();
     }
 
     public Vector3 forward() {
@@ -31,45 +41,77 @@ public class Camera {
         return new Vector3(x, 0, -z);
     }
 
-    private void calculateRays(boolean initializeRays) {
-        for (int x = 0; x < rays.length; x++) {
-            float lerpX = (float) x / (rays.length - 1);
+    /**
+     * Before it's normalized, every ray points along forward(), plus its column's offset along this
+     * and its row's offset straight up. This isn't a unit vector, the screen is wider than it is tall
+     */
+    public Vector3 sideways() {
+        float x = (float) Math.cos(rotation);
+        float z = (float) Math.sin(rotation);
+        return new Vector3(ASPECT_RATIO * x, 0, z);
+    }
+
+    /** How far a column's rays point along sideways() for every unit they point forward, growing left to right */
+    public float getColumnOffset(int column) {
+        return -columnOffsets[column];
+    }
+
+    /** How far a row's rays point up for every unit they point forward, shrinking top to bottom */
+    public float getRowOffset(int row) {
+        return rowOffsets[row];
+    }
+
+    /** The angle of every row and column only depends on the resolution, so they are only calculated once */
+    private void calculateOffsets() {
+        for (int x = 0; x < rows; x++) {
+            float lerpX = (float) x / (rows - 1);
             float dirX = ((1 - lerpX) * -FOV_RAD / 2 + lerpX * FOV_RAD / 2);
+            rowOffsets[x] = (float) -Math.sin(dirX);
+        }
+
+        for (int y = 0; y < columns; y++) {
+            float lerpY = (float) y / (columns - 1);
+            float dirY = (1 - lerpY) * -FOV_RAD / 2 + lerpY * FOV_RAD / 2;
+            columnOffsets[y] = (float) -Math.sin(dirY);
+        }
+    }
+
+    /** Rotates every column by the camera's yaw, then normalizes each ray */
+    private void calculateRays() {
+        float sin = (float) Math.sin(rotation);
+        float cos = (float) Math.cos(rotation);
+
+        for (int y = 0; y < columns; y++) {
+            float directionX = ASPECT_RATIO * -columnOffsets[y] * cos + sin;
+            float directionZ = -columnOffsets[y] * sin - cos;
 
-            for (int y = 0; y < rays[x].length; y++) {
-                float lerpY = (float) y / (rays[x].length - 1);
-                float dirY = (1 - lerpY) * -FOV_RAD / 2 + lerpY * FOV_RAD / 2;
-
-                Vector3 offset = new Vector3((float) -Math.sin(dirY), (float) -Math.sin(dirX), 1);
-                Vector3 direction = new Vector3(
-                        (float) (ASPECT_RATIO * -offset.x * Math.cos(rotation) + offset.z * Math.sin(rotation)),
-                        offset.y,
-                        (float) (-offset.x * Math.sin(rotation) - offset.z * Math.cos(rotation))
-                );
-
-                if (initializeRays) {
-                    rays[x][y] = new Raycast(
-                            position,
-                            direction,
-                            32,
-                            new RenderLayer[]{ RenderLayer.RENDER_ONLY },
-                            new CollisionLayer[]{}
-                    );
-                } else {
-                    rays[x][y].position = position;
-                    rays[x][y].setDirection(direction);
-                }
+            for (int x = 0; x < rows; x++) {
+                float directionY = rowOffsets[x];
+                float magnitude = (float) Math.sqrt(directionX * directionX + directionY * directionY + directionZ * directionZ);
+                int offset = (x * columns + y) * 3;
+
+                rayDirections[offset] = directionX / magnitude;
+                rayDirections[offset + 1] = directionY / magnitude;
+                rayDirections[offset + 2] = directionZ / magnitude;
             }
         }
     }
 
-    public Vector3 getPosition() {
+    /** Copies every ray's direction, so a frame can't be traced while the rays are being recalculated */
+    public synchronized float[] getRayDirections() {
+        return rayDirections.clone();
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public synchronized Vector3 getPosition() {
         return new Vector3(position);
     }
 
-    public void setPosition(Vector3 position) {
+    public synchronized void setPosition(Vector3 position) {
         this.position = position;
-        calculateRays(false);
     }
 
     public float getRotation() {
@@ -77,8 +119,11 @@ public class Camera {
     }
 
     /** Set rotation in degrees */
-    public void setRotation(float rotation) {
-        this.rotation = (float) Math.toRadians(rotation);
-        calculateRays(false);
+    public synchronized void setRotation(float rotation) {
+        float radians = (float) Math.toRadians(rotation);
+        if (radians == this.rotation) return;
+
+        this.rotation = radians;
+        calculateRays();
     }
 }
@@ -0,0 +1,296 @@
+package edu.neumont.csc150.model.misc;
+
+import edu.neumont.csc150.model.colliders.BoxCollider;
+import edu.neumont.csc150.model.colliders.HitBox;
+import edu.neumont.csc150.model.colliders.SpriteCollider;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Which of a level's walls and images can be seen from each cell of a grid over the ground.
+ * <br>
+ * Walls never move after a level loads, and they are taller than anything can see over,
+ * so visibility only has to be worked out once in 2D. A wall or image is visible from a cell
+ * if a line from any sample point in the cell reaches any sample point on its footprint without
+ * passing through another wall. Anything that isn't part of the set, like goblins, is always visible.
+ */
+public class PotentiallyVisibleSet {
+    /** Sample points along each side of a cell, the corners are shared with the neighbouring cells */
+    private final int CELL_SAMPLES = 3;
+    /** The most distance between two sample points on the edge of a wall or image */
+    private final float TARGET_SAMPLE_SPACING = 1;
+    /** Lines grazing a wall by less than this aren't blocked by it */
+    private final float EPSILON = 1e-3f;
+
+    private final float cellSize;
+    private final float minX;
+    private final float minZ;
+    private final int cellsX;
+    private final int cellsZ;
+    /** Which targets each cell can see, "null" for cells that are entirely inside walls */
+    private final BitSet[] visible;
+    private final Map<HitBox, Integer> indices = new IdentityHashMap<>();
+
+    /** Stored as x, z for each sample point, with targetSampleStart marking where each target's points start */
+    private final float[] targetSamples;
+    private final int[] targetSampleStart;
+    /** Each wall's footprint as 4 edges, stored as the inward normal's x, z and the offset */
+    private final float[] occluders;
+    private final int wallCount;
+
+    /**
+     * Works out the whole set, this is slow and should only happen when a level loads
+     *
+     * @param walls Every wall of the level, these block sight and can be seen
+     * @param images Every image of the level, these can only be seen
+     */
+    public PotentiallyVisibleSet(BoxCollider[] walls, SpriteCollider[] images, float cellSize) {
+        this.cellSize = cellSize;
+        wallCount = walls.length;
+
+        int targets = walls.length + images.length;
+        float[][] footprints = new float[targets][];
+        for (int i = 0; i < walls.length; i++) {
+            // The bottom 4 corners, in order around the box
+            Vector3[] verts = walls[i].getVerts();
+            footprints[i] = footprint(verts[0], verts[1], verts[5], verts[4]);
+            indices.put(walls[i], i);
+        }
+
+        for (int i = 0; i < images.length; i++) {
+            Vector3[] verts = images[i].getVerts();
+            footprints[walls.length + i] = footprint(verts[0], verts[1], verts[2], verts[3]);
+            indices.put(images[i], walls.length + i);
+        }
+
+        occluders = new float[walls.length * 12];
+        for (int i = 0; i < walls.length; i++)
+            writeOccluder(i, footprints[i]);
+
+        targetSampleStart = new int[targets + 1];
+        targetSamples = sampleTargets(footprints);
+
+        float[] bounds = { Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+        for (float[] footprint : footprints) {
+            for (int corner = 0; corner < 4; corner++) {
+                bounds[0] = Math.min(bounds[0], footprint[corner * 2]);
+                bounds[1] = Math.min(bounds[1], footprint[corner * 2 + 1]);
+                bounds[2] = Math.max(bounds[2], footprint[corner * 2]);
+                bounds[3] = Math.max(bounds[3], footprint[corner * 2 + 1]);
+            }
+        }
+
+        // One cell of margin on every side, past that everything is visible
+        minX = targets == 0 ? 0 : bounds[0] - cellSize;
+        minZ = targets == 0 ? 0 : bounds[1] - cellSize;
+        cellsX = targets == 0 ? 0 : (int) Math.ceil((bounds[2] + cellSize - minX) / cellSize);
+        cellsZ = targets == 0 ? 0 : (int) Math.ceil((bounds[3] + cellSize - minZ) / cellSize);
+        visible = new BitSet[cellsX * cellsZ];
+
+        build(targets);
+    }
+
+    /**
+     * The cell a position is in
+     *
+     * @return Returns -1 outside the grid and inside walls, where everything counts as visible
+     */
+    public int cellAt(Vector3 position) {
+        int x = (int) Math.floor((position.x - minX) / cellSize);
+        int z = (int) Math.floor((position.z - minZ) / cellSize);
+        if (x < 0 || z < 0 || x >= cellsX || z >= cellsZ) return -1;
+
+        int cell = x * cellsZ + z;
+        return visible[cell] == null ? -1 : cell;
+    }
+
+    /** True if the HitBox might be seen from the cell, or if it isn't a wall or image of this level */
+    public boolean isVisible(int cell, HitBox hitBox) {
+        if (cell < 0) return true;
+
+        Integer index = indices.get(hitBox);
+        return index == null || visible[cell].get(index);
+    }
+
+    /** The number of walls and images visible from the cell, or every one of them for -1 */
+    public int visibleCount(int cell) {
+        return cell < 0 ? indices.size() : visible[cell].cardinality();
+    }
+
+    private void build(int targets) {
+        // Neighbouring cells share the points on their edges, so each point is only worked out once
+        int pointsX = cellsX * (CELL_SAMPLES - 1) + 1;
+        int pointsZ = cellsZ * (CELL_SAMPLES - 1) + 1;
+        float spacing = cellSize / (CELL_SAMPLES - 1);
+        BitSet[] pointVisible = new BitSet[pointsX * pointsZ];
+
+        for (int x = 0; x < pointsX; x++) {
+            for (int z = 0; z < pointsZ; z++) {
+                float pointX = minX + x * spacing;
+                float pointZ = minZ + z * spacing;
+                if (insideWall(pointX, pointZ)) continue;
+
+                BitSet seen = new BitSet(targets);
+                for (int target = 0; target < targets; target++) {
+                    if (canSee(pointX, pointZ, target)) seen.set(target);
+                }
+
+                pointVisible[x * pointsZ + z] = seen;
+            }
+        }
+
+        for (int x = 0; x < cellsX; x++) {
+            for (int z = 0; z < cellsZ; z++) {
+                BitSet cell = null;
+
+                for (int sampleX = 0; sampleX < CELL_SAMPLES; sampleX++) {
+                    for (int sampleZ = 0; sampleZ < CELL_SAMPLES; sampleZ++) {
+                        int point = (x * (CELL_SAMPLES - 1) + sampleX) * pointsZ + z * (CELL_SAMPLES - 1) + sampleZ;
+                        if (pointVisible[point] == null) continue;
+
+                        if (cell == null) cell = new BitSet(targets);
+                        cell.or(pointVisible[point]);
+                    }
+                }
+
+                visible[x * cellsZ + z] = cell;
+            }
+        }
+    }
+
+    private boolean canSee(float x, float z, int target) {
+        for (int sample = targetSampleStart[target]; sample < targetSampleStart[target + 1]; sample++) {
+            if (!blocked(x, z, targetSamples[sample * 2], targetSamples[sample * 2 + 1], target))
+                return true;
+        }
+
+        return false;
+    }
+
+    /** True if the line passes through the inside of any wall except the target */
+    private boolean blocked(float fromX, float fromZ, float toX, float toZ, int target) {
+        for (int wall = 0; wall < wallCount; wall++) {
+            if (wall == target) continue;
+
+            // Clips the line to the inside of every edge, it's blocked if any of it is left
+            float entry = 0;
+            float exit = 1;
+            int offset = wall * 12;
+
+            for (int edge = offset; edge < offset + 12 && entry < exit; edge += 3) {
+                float from = occluders[edge] * fromX + occluders[edge + 1] * fromZ - occluders[edge + 2] - EPSILON;
+                float to = occluders[edge] * toX + occluders[edge + 1] * toZ - occluders[edge + 2] - EPSILON;
+
+                if (from < 0 && to < 0) exit = -1;
+                else if (from < 0) entry = Math.max(entry, from / (from - to));
+                else if (to < 0) exit = Math.min(exit, from / (from - to));
+            }
+
+            if (entry < exit) return true;
+        }
+
+        return false;
+    }
+
+    private boolean insideWall(float x, float z) {
+        for (int wall = 0; wall < wallCount; wall++) {
+            boolean inside = true;
+
+            for (int edge = wall * 12; edge < wall * 12 + 12 && inside; edge += 3)
+                inside = occluders[edge] * x + occluders[edge + 1] * z - occluders[edge + 2] > EPSILON;
+
+            if (inside) return true;
+        }
+
+        return false;
+    }
+
+    /** Every corner of each footprint, and points along its edges no further apart than TARGET_SAMPLE_SPACING */
+    private float[] sampleTargets(float[][] footprints) {
+        int total = 0;
+        for (int target = 0; target < footprints.length; target++) {
+            targetSampleStart[target] = total;
+
+            for (int corner = 0; corner < 4; corner++)
+                total += edgeSamples(footprints[target], corner);
+        }
+
+        targetSampleStart[footprints.length] = total;
+        float[] samples = new float[total * 2];
+
+        for (int target = 0; target < footprints.length; target++) {
+            float[] footprint = footprints[target];
+            int sample = targetSampleStart[target];
+
+            for (int corner = 0; corner < 4; corner++) {
+                int next = (corner + 1) % 4;
+                int count = edgeSamples(footprint, corner);
+
+                for (int i = 0; i < count; i++) {
+                    float lerp = (float) i / count;
+                    samples[sample * 2] = footprint[corner * 2] + (footprint[next * 2] - footprint[corner * 2]) * lerp;
+                    samples[sample * 2 + 1] = footprint[corner * 2 + 1] + (footprint[next * 2 + 1] - footprint[corner * 2 + 1]) * lerp;
+                    sample++;
+                }
+            }
+        }
+
+        return samples;
+    }
+
+    /** How many samples the edge starting at this corner gets, not counting the corner it ends on */
+    private int edgeSamples(float[] footprint, int corner) {
+        int next = (corner + 1) % 4;
+        float length = (float) Math.hypot(
+                footprint[next * 2] - footprint[corner * 2],
+                footprint[next * 2 + 1] - footprint[corner * 2 + 1]
+        );
+
+        return Math.max(1, (int) Math.ceil(length / TARGET_SAMPLE_SPACING));
+    }
+
+    /** Turns each edge into a line with a normal pointing inside, whichever way the corners wind */
+    private void writeOccluder(int wall, float[] footprint) {
+        float area = 0;
+        for (int corner = 0; corner < 4; corner++) {
+            int next = (corner + 1) % 4;
+            area += footprint[corner * 2] * footprint[next * 2 + 1] - footprint[next * 2] * footprint[corner * 2 + 1];
+        }
+
+        float winding = Math.signum(area);
+
+        for (int corner = 0; corner < 4; corner++) {
+            int next = (corner + 1) % 4;
+            float edgeX = footprint[next * 2] - footprint[corner * 2];
+            float edgeZ = footprint[next * 2 + 1] - footprint[corner * 2 + 1];
+            float length = (float) Math.hypot(edgeX, edgeZ);
+            int offset = wall * 12 + corner * 3;
+
+            // A wall with no area can't block anything, and no point is ever inside it
+            if (length == 0 || winding == 0) {
+                occluders[offset] = 0;
+                occluders[offset + 1] = 0;
+                occluders[offset + 2] = 0;
+                continue;
+            }
+
+            float normalX = -edgeZ / length * winding;
+            float normalZ = edgeX / length * winding;
+            occluders[offset] = normalX;
+            occluders[offset + 1] = normalZ;
+            occluders[offset + 2] = normalX * footprint[corner * 2] + normalZ * footprint[corner * 2 + 1];
+        }
+    }
+
+    private float[] footprint(Vector3... corners) {
+        float[] footprint = new float[8];
+        for (int corner = 0; corner < 4; corner++) {
+            footprint[corner * 2] = corners[corner].x;
+            footprint[corner * 2 + 1] = corners[corner].z;
+        }
+
+        return footprint;
+    }
+}
@@ -0,0 +1,134 @@
+package edu.neumont.csc150.model.misc;
+
+import edu.neumont.csc150.model.colliders.HitBox;
+
+import java.util.*;
+
+/**
+ * A uniform grid over the ground (X and Z) that HitBoxes are bucketed into by their bounds.
+ * <br>
+ * A HitBox is only moved between cells when its bounds cross into different cells,
+ * and a query only looks at the cells its own bounds touch.
+ */
+public class SpatialHash {
+    /** Anything covering more cells than this is kept in one list that every query returns */
+    private final int MAX_CELLS_PER_HITBOX = 256;
+    private final int MAX_CELL = 1 << 20;
+
+    private final float cellSize;
+    private final Map<Long, List<HitBox>> cells = new HashMap<>();
+    /** The cells each HitBox is in, stored as minX, minZ, maxX, maxZ */
+    private final Map<HitBox, int[]> cellRanges = new IdentityHashMap<>();
+    private final Set<HitBox> largeHitBoxes = new LinkedHashSet<>();
+    private final float[] bounds = new float[6];
+
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /** Adds the HitBox, or moves it to the right cells if it's already in the hash */
+    public void update(HitBox hitBox) {
+        int[] range = getCellRange(hitBox);
+        int[] previous = cellRanges.get(hitBox);
+
+        if (previous != null) {
+            if (Arrays.equals(previous, range)) return;
+
+            remove(hitBox);
+        }
+
+        cellRanges.put(hitBox, range);
+
+        if (isLarge(range)) {
+            largeHitBoxes.add(hitBox);
+            return;
+        }
+
+        for (int x = range[0]; x <= range[2]; x++) {
+            for (int z = range[1]; z <= range[3]; z++)
+                cells.computeIfAbsent(key(x, z), _ -> new ArrayList<>()).add(hitBox);
+        }
+    }
+
+    public void remove(HitBox hitBox) {
+        int[] range = cellRanges.remove(hitBox);
+        if (range == null) return;
+
+        if (isLarge(range)) {
+            largeHitBoxes.remove(hitBox);
+            return;
+        }
+
+        for (int x = range[0]; x <= range[2]; x++) {
+            for (int z = range[1]; z <= range[3]; z++) {
+                long key = key(x, z);
+                List<HitBox> cell = cells.get(key);
+                if (cell == null) continue;
+
+                cell.remove(hitBox);
+                if (cell.isEmpty()) cells.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        cellRanges.clear();
+        largeHitBoxes.clear();
+    }
+
+    /** Adds every HitBox sharing a cell with the given one, including itself if it's in the hash */
+    public void retrieve(Set<HitBox> foundObjects, HitBox hitBox) {
+        int[] range = cellRanges.get(hitBox);
+        if (range == null) range = getCellRange(hitBox);
+
+        retrieve(foundObjects, range);
+    }
+
+    /** Adds every HitBox in the cells an area on the ground touches */
+    public void retrieve(Set<HitBox> foundObjects, float minX, float minZ, float maxX, float maxZ) {
+        retrieve(foundObjects, new int[]{ cell(minX), cell(minZ), cell(maxX), cell(maxZ) });
+    }
+
+    private void retrieve(Set<HitBox> foundObjects, int[] range) {
+        foundObjects.addAll(largeHitBoxes);
+
+        if (isLarge(range)) {
+            for (List<HitBox> cell : cells.values())
+                foundObjects.addAll(cell);
+
+            return;
+        }
+
+        for (int x = range[0]; x <= range[2]; x++) {
+            for (int z = range[1]; z <= range[3]; z++) {
+                List<HitBox> cell = cells.get(key(x, z));
+                if (cell != null) foundObjects.addAll(cell);
+            }
+        }
+    }
+
+    private int[] getCellRange(HitBox hitBox) {
+        hitBox.getBounds(bounds, 0);
+
+        return new int[]{
+                cell(bounds[0]),
+                cell(bounds[2]),
+                cell(bounds[3]),
+                cell(bounds[5])
+        };
+    }
+
+    private int cell(float position) {
+        // Clamped so bounds that were never set can't overflow the loops over a range
+        return (int) Math.max(-MAX_CELL, Math.min(MAX_CELL, Math.floor(position / cellSize)));
+    }
+
+    private boolean isLarge(int[] range) {
+        return (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1) > MAX_CELLS_PER_HITBOX;
+    }
+
+    private long key(int x, int z) {
+        return (long) x << 32 | z & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,65 @@
+package edu.neumont.csc150.model.misc;
+
+/**
+ * An image that was decoded once when it was loaded.
+ * <br>
+ * Nothing in here changes after it's made, so every render worker can sample it at once without locking.
+ */
+public final class Texture {
+    /** Returned when sampling a pixel that isn't fully opaque */
+    public static final long TRANSPARENT = -1;
+
+    private final int width;
+    private final int height;
+    /** Stored as AARRGGBB, row by row starting at the top */
+    private final int[] pixels;
+    /** Every pixel's color in the same layout as a character in the frame, or TRANSPARENT */
+    private final long[] colors;
+    /** The next mip level, half the size of this one. "null" once it's 1 by 1 */
+    private final Texture smaller;
+
+    /** @param smaller The next mip level, can be "null" */
+    public Texture(int width, int height, int[] pixels, long[] colors, Texture smaller) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.colors = colors;
+        this.smaller = smaller;
+    }
+
+    /** Level 0 is this texture and every level after it is half the size, past the smallest one the smallest is returned */
+    public Texture getMipLevel(int level) {
+        Texture texture = this;
+        for (int i = 0; i < level && texture.smaller != null; i++)
+            texture = texture.smaller;
+
+        return texture;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** x and y are in pixels, (0, 0) being the top left */
+    public int getArgb(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * x and y go from -1 to 1, (-1, -1) being the bottom left
+     *
+     * @return Returns the color in the layout of a character in the frame, or TRANSPARENT
+     */
+    public long sample(float x, float y) {
+        int xCoordinate = (int) ((x / 2 + 0.5f) * width);
+        int yCoordinate = (int) ((y / 2 + 0.5f) * height);
+        xCoordinate = Math.min(Math.max(xCoordinate, 0), width - 1);
+        yCoordinate = Math.min(Math.max(yCoordinate, 0), height - 1);
+
+        return colors[(height - 1 - yCoordinate) * width + xCoordinate];
+    }
+}
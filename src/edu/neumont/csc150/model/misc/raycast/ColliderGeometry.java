@@ -0,0 +1,321 @@
+package edu.neumont.csc150.model.misc.raycast;
+
+import edu.neumont.csc150.model.colliders.*;
+import edu.neumont.csc150.model.misc.BoundingVolumeHierarchy;
+import edu.neumont.csc150.model.misc.Vector3;
+
+/**
+ * Every collider's shape packed into flat arrays, in the same order as the bounding volume hierarchy.
+ * <br>
+ * Quads are stored as their plane and the planes of their 4 edges, so a ray can be tested
+ * without creating a single Vector3. A collider is only rewritten after it was moved, scaled or rotated.
+ */
+public class ColliderGeometry {
+    private static final int BOX_QUADS = 6;
+    /** The normal and offset of the quad's plane, then the normal and offset of each edge's plane */
+    private static final int PLANE_STRIDE = 20;
+    /** The 4 corners of a quad */
+    private static final int CORNER_STRIDE = 12;
+
+    private HitBox[] hitBoxes = new HitBox[0];
+    /** Boxes have 6 quads, sprites have 1 and spheres have none */
+    private int[] quadStart = new int[0];
+    private int[] quadCount = new int[0];
+    private float[] quadPlanes = new float[0];
+    private float[] quadCorners = new float[0];
+    /** Stored as x, y, z for each collider */
+    private float[] centers = new float[0];
+    private float[] rights = new float[0];
+    private float[] scales = new float[0];
+    private float[] radii = new float[0];
+    /** Stored as minX, minY, minZ, maxX, maxY, maxZ for each collider */
+    private float[] bounds = new float[0];
+
+    public ColliderGeometry() {}
+
+    /** Copies the geometry as it is right now, later updates won't change the copy */
+    public ColliderGeometry(ColliderGeometry geometry) {
+        hitBoxes = geometry.hitBoxes;
+        quadStart = geometry.quadStart;
+        quadCount = geometry.quadCount;
+        quadPlanes = geometry.quadPlanes.clone();
+        quadCorners = geometry.quadCorners.clone();
+        centers = geometry.centers.clone();
+        rights = geometry.rights.clone();
+        scales = geometry.scales.clone();
+        radii = geometry.radii.clone();
+        bounds = geometry.bounds.clone();
+    }
+
+    /** Lays out every collider in the hierarchy's order, this should happen every time it's built */
+    public void build(BoundingVolumeHierarchy hierarchy) {
+        int size = hierarchy.size();
+        hitBoxes = new HitBox[size];
+        quadStart = new int[size];
+        quadCount = new int[size];
+
+        int quads = 0;
+        for (int i = 0; i < size; i++) {
+            hitBoxes[i] = hierarchy.getHitBox(i);
+            quadStart[i] = quads;
+            quadCount[i] = switch (hitBoxes[i]) {
+                case BoxCollider _ -> BOX_QUADS;
+                case SpriteCollider _ -> 1;
+                case SphereCollider _ -> 0;
+            };
+            quads += quadCount[i];
+        }
+
+        quadPlanes = new float[quads * PLANE_STRIDE];
+        quadCorners = new float[quads * CORNER_STRIDE];
+        centers = new float[size * 3];
+        rights = new float[size * 3];
+        scales = new float[size * 3];
+        radii = new float[size];
+        bounds = new float[size * 6];
+
+        for (int i = 0; i < size; i++) {
+            hitBoxes[i].takeGeometryChanged();
+            write(i);
+        }
+    }
+
+    /**
+     * Rewrites every collider that changed since the last update
+     *
+     * @return Returns "true" if anything changed
+     */
+    public boolean update() {
+        boolean changed = false;
+
+        for (int i = 0; i < hitBoxes.length; i++) {
+            if (!hitBoxes[i].takeGeometryChanged()) continue;
+
+            write(i);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /** True if the collider's shape is the same in both, they must come from the same build */
+    public boolean sameShape(ColliderGeometry geometry, int collider) {
+        if (radii[collider] != geometry.radii[collider]) return false;
+        if (!sameRange(centers, geometry.centers, collider * 3, 3)) return false;
+        if (!sameRange(scales, geometry.scales, collider * 3, 3)) return false;
+        if (!sameRange(bounds, geometry.bounds, collider * 6, 6)) return false;
+
+        return sameRange(
+                quadCorners,
+                geometry.quadCorners,
+                quadStart[collider] * CORNER_STRIDE,
+                quadCount[collider] * CORNER_STRIDE
+        );
+    }
+
+    private void write(int collider) {
+        HitBox hitBox = hitBoxes[collider];
+        setVector(centers, collider, hitBox.getPosition());
+        hitBox.getBounds(bounds, collider * 6);
+
+        switch (hitBox) {
+            case BoxCollider box -> {
+                Vector3[][] quads = box.getQuads();
+                for (int q = 0; q < BOX_QUADS; q++)
+                    writeQuad(quadStart[collider] + q, quads[q]);
+
+                setVector(scales, collider, box.getScale());
+            }
+            case SpriteCollider sprite -> {
+                writeQuad(quadStart[collider], sprite.getVerts());
+                setVector(rights, collider, sprite.getRight());
+                setVector(scales, collider, sprite.getScale());
+            }
+            case SphereCollider sphere -> radii[collider] = sphere.getRadius();
+        }
+    }
+
+    private void writeQuad(int quad, Vector3[] verts) {
+        int plane = quad * PLANE_STRIDE;
+        int corner = quad * CORNER_STRIDE;
+
+        for (Vector3 vert : verts) {
+            // A quad that isn't finished can never be hit, a zero normal makes every ray miss it
+            if (vert == null) {
+                for (int i = 0; i < PLANE_STRIDE; i++)
+                    quadPlanes[plane + i] = 0;
+
+                return;
+            }
+        }
+
+        Vector3 normal = verts[1].subtract(verts[0]).cross(verts[2].subtract(verts[0]));
+        quadPlanes[plane] = normal.x;
+        quadPlanes[plane + 1] = normal.y;
+        quadPlanes[plane + 2] = normal.z;
+        quadPlanes[plane + 3] = verts[0].dot(normal);
+
+        // A point is inside when ((point - vert) x edge) dot normal >= 0 for every edge,
+        // which is the same as point dot (edge x normal) >= vert dot (edge x normal)
+        for (int v = 0; v < 4; v++) {
+            Vector3 vert = verts[v];
+            Vector3 edgeNormal = vert.subtract(verts[(v + 1) % 4]).cross(normal);
+            int edge = plane + 4 + v * 4;
+
+            quadPlanes[edge] = edgeNormal.x;
+            quadPlanes[edge + 1] = edgeNormal.y;
+            quadPlanes[edge + 2] = edgeNormal.z;
+            quadPlanes[edge + 3] = vert.dot(edgeNormal);
+
+            quadCorners[corner + v * 3] = vert.x;
+            quadCorners[corner + v * 3 + 1] = vert.y;
+            quadCorners[corner + v * 3 + 2] = vert.z;
+        }
+    }
+
+    /**
+     * The ray is passed as floats, so a ray read out of a SceneSnapshot doesn't need a Vector3
+     *
+     * @return Returns the distance to where the ray hits the quad, or -1 if it misses
+     */
+    public float intersectQuad(
+            int quad,
+            float originX,
+            float originY,
+            float originZ,
+            float directionX,
+            float directionY,
+            float directionZ,
+            float maxDistance
+    ) {
+        int plane = quad * PLANE_STRIDE;
+        float normalX = quadPlanes[plane];
+        float normalY = quadPlanes[plane + 1];
+        float normalZ = quadPlanes[plane + 2];
+
+        float facing = directionX * normalX + directionY * normalY + directionZ * normalZ;
+        if (Math.abs(facing) < 1e-6) return -1;
+
+        // t is from the equation: (P + tD - C) dot n = 0
+        float t = (quadPlanes[plane + 3] - (originX * normalX + originY * normalY + originZ * normalZ)) / facing;
+        if (t > maxDistance || t < 0) return -1;
+
+        float x = originX + directionX * t;
+        float y = originY + directionY * t;
+        float z = originZ + directionZ * t;
+
+        for (int edge = plane + 4; edge < plane + PLANE_STRIDE; edge += 4) {
+            if (x * quadPlanes[edge] + y * quadPlanes[edge + 1] + z * quadPlanes[edge + 2] < quadPlanes[edge + 3])
+                return -1;
+        }
+
+        return t;
+    }
+
+    /** @return Returns the distance to the nearest hit in front of the ray, or -1 if it misses */
+    public float intersectSphere(
+            int collider,
+            float originX,
+            float originY,
+            float originZ,
+            float directionX,
+            float directionY,
+            float directionZ,
+            float maxDistance
+    ) {
+        // L is the sphere's center pointing to the ray's origin
+        float lX = originX - centers[collider * 3];
+        float lY = originY - centers[collider * 3 + 1];
+        float lZ = originZ - centers[collider * 3 + 2];
+        float radius = radii[collider];
+
+        float a = directionX * directionX + directionY * directionY + directionZ * directionZ;
+        if (a == 0) return -1;
+
+        float b = directionX * lX + directionY * lY + directionZ * lZ;
+        float discriminant = b * b - a * (lX * lX + lY * lY + lZ * lZ - radius * radius);
+        if (discriminant < 0) return -1;
+
+        float root = (float) Math.sqrt(discriminant);
+        float near = (-b - root) / a;
+        float far = (-b + root) / a;
+
+        float t = near > 0 ? near : far;
+        if (t <= 0 || t > maxDistance) return -1;
+
+        return t;
+    }
+
+    /** How far a point is in front of the quad's plane, in units of the plane's normal length */
+    public float planeDistance(int quad, float x, float y, float z) {
+        int plane = quad * PLANE_STRIDE;
+        return x * quadPlanes[plane] + y * quadPlanes[plane + 1] + z * quadPlanes[plane + 2] - quadPlanes[plane + 3];
+    }
+
+    public HitBox getHitBox(int collider) {
+        return hitBoxes[collider];
+    }
+
+    public int size() {
+        return hitBoxes.length;
+    }
+
+    /** The number of quads of every collider together */
+    public int getQuadTotal() {
+        return quadPlanes.length / PLANE_STRIDE;
+    }
+
+    public int getQuadStart(int collider) {
+        return quadStart[collider];
+    }
+
+    public int getQuadCount(int collider) {
+        return quadCount[collider];
+    }
+
+    /** Axis is 0 for x, 1 for y and 2 for z */
+    public float getCorner(int quad, int corner, int axis) {
+        return quadCorners[quad * CORNER_STRIDE + corner * 3 + axis];
+    }
+
+    public float getCenter(int collider, int axis) {
+        return centers[collider * 3 + axis];
+    }
+
+    /** Only set for sprites */
+    public float getRight(int collider, int axis) {
+        return rights[collider * 3 + axis];
+    }
+
+    public float getScale(int collider, int axis) {
+        return scales[collider * 3 + axis];
+    }
+
+    public float getRadius(int collider) {
+        return radii[collider];
+    }
+
+    /** Copies the axis aligned bounds as minX, minY, minZ, maxX, maxY, maxZ */
+    public void getBounds(int collider, float[] bounds) {
+        System.arraycopy(this.bounds, collider * 6, bounds, 0, 6);
+    }
+
+    /** Axis is 0 to 2 for the minimum and 3 to 5 for the maximum */
+    public float getBound(int collider, int axis) {
+        return bounds[collider * 6 + axis];
+    }
+
+    private void setVector(float[] array, int collider, Vector3 vector) {
+        array[collider * 3] = vector.x;
+        array[collider * 3 + 1] = vector.y;
+        array[collider * 3 + 2] = vector.z;
+    }
+
+    private boolean sameRange(float[] a, float[] b, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (a[i] != b[i]) return false;
+        }
+
+        return true;
+    }
+}
@@ -4,16 +4,14 @@ import edu.neumont.csc150.model.enums.CollisionLayer;
 import edu.neumont.csc150.model.enums.RenderLayer;
 import edu.neumont.csc150.model.misc.Vector3;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 public class Raycast {
     public Vector3 position;
     private Vector3 direction;
     public final float DISTANCE;
-    private final Set<RenderLayer> renderLayer = new HashSet<>();
-    private final Set<CollisionLayer> collisionLayer = new HashSet<>();
+    /** A bit for each RenderLayer, see RenderLayer.mask */
+    private int renderLayerMask;
+    /** A bit for each CollisionLayer, see CollisionLayer.mask */
+    private int collisionLayerMask;
 
     public Raycast() {
         DISTANCE = Float.MAX_VALUE;
@@ -43,8 +41,8 @@ public class Raycast {
             CollisionLayer[] collisionLayers
     ) {
         this(position, direction, distance);
-        renderLayer.addAll(Arrays.asList(layers));
-        collisionLayer.addAll(Arrays.asList(collisionLayers));
+        renderLayerMask = RenderLayer.maskOf(layers);
+        collisionLayerMask = CollisionLayer.maskOf(collisionLayers);
     }
 
     public Vector3 getDirection() {
@@ -56,10 +54,18 @@ public class Raycast {
     }
 
     public boolean containsRenderLayer(RenderLayer layer) {
-        return renderLayer.contains(layer);
+        return (renderLayerMask & layer.mask) != 0;
     }
 
     public boolean containsCollisionLayer(CollisionLayer layer) {
-        return collisionLayer.contains(layer);
+        return (collisionLayerMask & layer.mask) != 0;
+    }
+
+    public int getRenderLayerMask() {
+        return renderLayerMask;
+    }
+
+    public int getCollisionLayerMask() {
+        return collisionLayerMask;
     }
 }
@@ -0,0 +1,656 @@
+package edu.neumont.csc150.model.misc.raycast;
+
+import edu.neumont.csc150.model.colliders.*;
+import edu.neumont.csc150.model.enums.RenderLayer;
+import edu.neumont.csc150.model.misc.BinarySpacePartition;
+import edu.neumont.csc150.model.misc.BoundingVolumeHierarchy;
+import edu.neumont.csc150.model.misc.Camera;
+import edu.neumont.csc150.model.misc.Color;
+import edu.neumont.csc150.model.misc.PotentiallyVisibleSet;
+import edu.neumont.csc150.model.misc.Texture;
+import edu.neumont.csc150.model.misc.Vector3;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A read only copy of the colliders and the camera, taken once per frame.
+ * <br>
+ * Render workers trace against this instead of the live CollisionService,
+ * so gameplay can add, move and remove colliders while a frame is being drawn.
+ * Everything is stored in the same order as the bounding volume hierarchy.
+ */
+public class SceneSnapshot {
+    /** Bounds closer than this to a row or column's plane count as crossing it */
+    private final float PLANE_EPSILON = 1e-4f;
+
+    private final BoundingVolumeHierarchy boundingVolumes;
+    private final ColliderGeometry geometry;
+    private final Color[] colors;
+    private final Texture[] images;
+    private final boolean[] collisionOnly;
+    private final Map<HitBox, Integer> indices = new IdentityHashMap<>();
+
+    private final Vector3 cameraPosition;
+    private final float cameraRotation;
+    /** Stored as x, y, z for each ray, row by row */
+    private final float[] rayDirections;
+    private final int rayColumns;
+    private final int rayRows;
+    private final float rayDistance;
+    /**
+     * Every ray in a column lies on one plane through the camera, and so does every ray in a row.
+     * Stored as the unit normal's x, y, z for each column and each row
+     */
+    private final float[] columnPlanes;
+    private final float[] rowPlanes;
+
+    // region Projection
+    /** Stored as x, z, neither of them point up or down, see Camera.sideways */
+    private final float[] forward;
+    private final float[] sideways;
+    private final float[] columnOffsets;
+    private final float[] rowOffsets;
+    // endregion
+
+    // region Culling
+    /** Every collider at least partly inside the camera's view, shared by all the workers for this frame */
+    private int[] candidates;
+    private final boolean[] culled;
+    /** Box quads facing away from the camera, a camera ray can never hit one of these first */
+    private final boolean[] backFacingQuads;
+    /** The level's walls and images that can be seen from where the camera is, "null" when there is no level */
+    private final PotentiallyVisibleSet visibleSet;
+    /** How far the camera is from each collider's bounds */
+    private final float[] boundsDistances;
+    // endregion
+
+    // region Sprites
+    /** Set by splitSprites, sprites are then drawn over the traced frame instead of being hit by rays */
+    private boolean spritesSplit;
+    /** The visible sprites, nearest bounds first */
+    private int[] sprites = new int[0];
+    // endregion
+
+    // region Tiles
+    /** The candidates each render tile's rays could hit, nearest bounds first. "null" until binTiles is called */
+    private int[][] tileCandidates;
+    private int tileWidth;
+    private int tileHeight;
+    private int tileColumns;
+    // endregion
+
+    // region Wall Tree
+    /** The level's walls from above, "null" when there is no level */
+    private final BinarySpacePartition wallTree;
+    /** The index in this snapshot of each wall in the tree, -1 for walls that aren't in it */
+    private final int[] wallColliders;
+    private final boolean[] inWallTree;
+    // endregion
+
+    /**
+     * Must be taken while the colliders can't change,
+     * CollisionService.takeSnapshot does this while holding its lock
+     *
+     * @param potentiallyVisibleSet Walls and images it doesn't have visible from the camera are culled, can be "null"
+     * @param binarySpacePartition The level's walls, can be "null"
+     */
+    public SceneSnapshot(
+            BoundingVolumeHierarchy hierarchy,
+            ColliderGeometry colliderGeometry,
+            Camera camera,
+            PotentiallyVisibleSet potentiallyVisibleSet,
+            BinarySpacePartition binarySpacePartition
+    ) {
+        visibleSet = potentiallyVisibleSet;
+        wallTree = binarySpacePartition;
+        boundingVolumes = new BoundingVolumeHierarchy(hierarchy);
+        geometry = new ColliderGeometry(colliderGeometry);
+
+        int size = boundingVolumes.size();
+        colors = new Color[size];
+        images = new Texture[size];
+        collisionOnly = new boolean[size];
+
+        for (int i = 0; i < size; i++) {
+            HitBox hitBox = boundingVolumes.getHitBox(i);
+            indices.put(hitBox, i);
+            collisionOnly[i] = hitBox.containsRenderLayer(RenderLayer.COLLISION_ONLY);
+
+            if (hitBox instanceof SpriteCollider sprite) images[i] = sprite.getImage();
+            else colors[i] = hitBox.getColor();
+        }
+
+        inWallTree = new boolean[size];
+        wallColliders = new int[wallTree == null ? 0 : wallTree.size()];
+        for (int wall = 0; wall < wallColliders.length; wall++) {
+            wallColliders[wall] = indexOf(wallTree.getWall(wall));
+            if (wallColliders[wall] >= 0) inWallTree[wallColliders[wall]] = true;
+        }
+
+        culled = new boolean[size];
+        boundsDistances = new float[size];
+        backFacingQuads = new boolean[geometry.getQuadTotal()];
+
+        if (camera == null) {
+            cameraPosition = null;
+            cameraRotation = 0;
+            rayDirections = null;
+            rayColumns = 0;
+            rayRows = 0;
+            rayDistance = 0;
+            columnPlanes = null;
+            rowPlanes = null;
+            forward = null;
+            sideways = null;
+            columnOffsets = null;
+            rowOffsets = null;
+            candidates = cull();
+            return;
+        }
+
+        // Both are taken while holding the camera's lock so they always match
+        synchronized (camera) {
+            cameraPosition = camera.getPosition();
+            cameraRotation = camera.getRotation();
+            rayDirections = camera.getRayDirections();
+            rayColumns = camera.getColumns();
+            rayDistance = camera.RAY_DISTANCE;
+
+            Vector3 cameraForward = camera.forward();
+            Vector3 cameraSideways = camera.sideways();
+            forward = new float[]{ cameraForward.x, cameraForward.z };
+            sideways = new float[]{ cameraSideways.x, cameraSideways.z };
+        }
+
+        rayRows = rayDirections.length / 3 / rayColumns;
+        columnOffsets = new float[rayColumns];
+        for (int y = 0; y < rayColumns; y++)
+            columnOffsets[y] = camera.getColumnOffset(y);
+
+        rowOffsets = new float[rayRows];
+        for (int x = 0; x < rayRows; x++)
+            rowOffsets[x] = camera.getRowOffset(x);
+
+        columnPlanes = new float[rayColumns * 3];
+        for (int y = 0; y < rayColumns; y++)
+            writePlane(columnPlanes, y, y, (rayRows - 1) * rayColumns + y);
+
+        rowPlanes = new float[rayRows * 3];
+        for (int x = 0; x < rayRows; x++)
+            writePlane(rowPlanes, x, x * rayColumns, x * rayColumns + rayColumns - 1);
+
+        candidates = cull();
+    }
+
+    // region Culling
+    /**
+     * Drops every collider outside the camera's view, further away than its rays reach
+     * or hidden behind the level's walls from the camera's cell, then marks the quads of the boxes that are left which face away from the camera.
+     * <br>
+     * A column's rays all point the same way along the ground, and the columns between the first and
+     * the last one point between them, so the sides of the view are the ground directions of the outer columns.
+     * Levels are a single story, so the top and bottom of the view are left out.
+     *
+     * @return Returns the index of every collider that wasn't culled
+     */
+    private int[] cull() {
+        int size = culled.length;
+        if (!hasCamera()) return allColliders(size);
+
+        float leftX = rayDirections[0];
+        float leftZ = rayDirections[2];
+        float rightX = rayDirections[(rayColumns - 1) * 3];
+        float rightZ = rayDirections[(rayColumns - 1) * 3 + 2];
+
+        // Each side's normal is turned to point at the other side, so inside the view both are positive
+        float leftNormalX = -leftZ;
+        float leftNormalZ = leftX;
+        if (leftNormalX * rightX + leftNormalZ * rightZ < 0) {
+            leftNormalX = -leftNormalX;
+            leftNormalZ = -leftNormalZ;
+        }
+
+        float rightNormalX = -rightZ;
+        float rightNormalZ = rightX;
+        if (rightNormalX * leftX + rightNormalZ * leftZ < 0) {
+            rightNormalX = -rightNormalX;
+            rightNormalZ = -rightNormalZ;
+        }
+
+        // Outer columns pointing opposite ways would make the view half a turn wide, which two planes can't bound
+        if (leftX * rightZ - leftZ * rightX == 0 && leftX * rightX + leftZ * rightZ < 0) return allColliders(size);
+
+        float[] bounds = new float[6];
+        int[] visible = new int[size];
+        int count = 0;
+        int cell = visibleSet == null ? -1 : visibleSet.cellAt(cameraPosition);
+
+        for (int collider = 0; collider < size; collider++) {
+            geometry.getBounds(collider, bounds);
+            boundsDistances[collider] = distanceToBounds(bounds);
+
+            culled[collider] = isCollisionOnly(collider) ||
+                    (visibleSet != null && !visibleSet.isVisible(cell, getHitBox(collider))) ||
+                    boundsDistances[collider] > rayDistance ||
+                    outsidePlane(bounds, leftNormalX, leftNormalZ) ||
+                    outsidePlane(bounds, rightNormalX, rightNormalZ);
+
+            if (culled[collider]) continue;
+
+            visible[count++] = collider;
+            if (getHitBox(collider) instanceof BoxCollider) cullBackFaces(collider);
+        }
+
+        return sortByBoundsDistance(Arrays.copyOf(visible, count));
+    }
+
+    private int[] allColliders(int size) {
+        int[] all = new int[size];
+        for (int i = 0; i < size; i++)
+            all[i] = i;
+
+        return all;
+    }
+
+    private float distanceToBounds(float[] bounds) {
+        float[] camera = { cameraPosition.x, cameraPosition.y, cameraPosition.z };
+        float squaredDistance = 0;
+
+        for (int axis = 0; axis < 3; axis++) {
+            float outside = Math.max(bounds[axis] - camera[axis], Math.max(0, camera[axis] - bounds[axis + 3]));
+            squaredDistance += outside * outside;
+        }
+
+        return (float) Math.sqrt(squaredDistance);
+    }
+
+    /** True if every corner of the bounds' footprint is behind a plane through the camera */
+    private boolean outsidePlane(float[] bounds, float normalX, float normalZ) {
+        for (int corner = 0; corner < 4; corner++) {
+            float x = (corner & 1) == 0 ? bounds[0] : bounds[3];
+            float z = (corner & 2) == 0 ? bounds[2] : bounds[5];
+
+            if (normalX * (x - cameraPosition.x) + normalZ * (z - cameraPosition.z) >= 0) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * A quad faces away when the camera is on the same side of it as the box's center.
+     * From inside a box every quad would face away, so nothing is culled then.
+     */
+    private void cullBackFaces(int collider) {
+        int start = geometry.getQuadStart(collider);
+        int end = start + geometry.getQuadCount(collider);
+        float centerX = geometry.getCenter(collider, 0);
+        float centerY = geometry.getCenter(collider, 1);
+        float centerZ = geometry.getCenter(collider, 2);
+        boolean anyFacing = false;
+
+        for (int quad = start; quad < end; quad++) {
+            float camera = geometry.planeDistance(quad, cameraPosition.x, cameraPosition.y, cameraPosition.z);
+            float center = geometry.planeDistance(quad, centerX, centerY, centerZ);
+
+            backFacingQuads[quad] = camera * center > 0;
+            anyFacing |= !backFacingQuads[quad];
+        }
+
+        if (anyFacing) return;
+
+        for (int quad = start; quad < end; quad++)
+            backFacingQuads[quad] = false;
+    }
+
+    /** Every collider that wasn't culled this frame, by its index, nearest bounds first. This must not be changed */
+    public int[] getCandidates() {
+        return candidates;
+    }
+
+    /** True if the collider is outside the camera's view this frame, or is a sprite that was split off */
+    public boolean isCulled(int collider) {
+        return culled[collider];
+    }
+
+    /** One entry per quad in the geometry, "true" for box quads facing away from the camera. This must not be changed */
+    public boolean[] getBackFacingQuads() {
+        return backFacingQuads;
+    }
+
+    /** How far the camera is from the collider's bounds, 0 when it's inside them */
+    public float getBoundsDistance(int collider) {
+        return boundsDistances[collider];
+    }
+    // endregion
+
+    // region Sprites
+    /**
+     * Takes every visible sprite out of the candidates and culls it, so the rays only hit the rest
+     * of the scene and the sprites can be drawn over it afterwards.
+     * This must be called before the snapshot is shared with the workers.
+     */
+    public void splitSprites() {
+        spritesSplit = true;
+        int[] rest = new int[candidates.length];
+        int[] found = new int[candidates.length];
+        int restCount = 0;
+        int foundCount = 0;
+
+        for (int collider : candidates) {
+            if (!(getHitBox(collider) instanceof SpriteCollider)) {
+                rest[restCount++] = collider;
+                continue;
+            }
+
+            culled[collider] = true;
+            if (images[collider] != null) found[foundCount++] = collider;
+        }
+
+        candidates = Arrays.copyOf(rest, restCount);
+        sprites = Arrays.copyOf(found, foundCount);
+    }
+
+    /** The visible sprites to draw over the traced frame, nearest bounds first. Empty unless splitSprites was called */
+    public int[] getSprites() {
+        return sprites;
+    }
+
+    /** True if the collider is a sprite that is drawn over the traced frame instead of being traced */
+    public boolean isSplitSprite(int collider) {
+        return spritesSplit && getHitBox(collider) instanceof SpriteCollider;
+    }
+    // endregion
+
+    // region Tiles
+    /**
+     * Sorts every candidate into the render tiles whose rays could hit it, nearest bounds first.
+     * A collider is only added to the tiles that overlap its screen range, see getScreenRange.
+     * This must be called before the snapshot is shared with the workers.
+     */
+    public void binTiles(int tileWidth, int tileHeight) {
+        if (!hasCamera()) return;
+
+        int tileRows = (rayRows + tileHeight - 1) / tileHeight;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        tileColumns = (rayColumns + tileWidth - 1) / tileWidth;
+
+        // Tiles are stored as first tile row, first tile column, last tile row, last tile column for each candidate
+        int[] tileRanges = new int[candidates.length * 4];
+        int[] counts = new int[tileRows * tileColumns];
+        int[] range = new int[4];
+        float[] bounds = new float[6];
+
+        for (int i = 0; i < candidates.length; i++) {
+            geometry.getBounds(candidates[i], bounds);
+
+            // Nothing can be outside every tile, so an empty range is stored backwards and never matches
+            if (!getScreenRange(bounds, range)) {
+                tileRanges[i * 4] = 1;
+                continue;
+            }
+
+            tileRanges[i * 4] = range[0] / tileHeight;
+            tileRanges[i * 4 + 1] = range[1] / tileWidth;
+            tileRanges[i * 4 + 2] = range[2] / tileHeight;
+            tileRanges[i * 4 + 3] = range[3] / tileWidth;
+
+            for (int tileRow = tileRanges[i * 4]; tileRow <= tileRanges[i * 4 + 2]; tileRow++) {
+                for (int tileColumn = tileRanges[i * 4 + 1]; tileColumn <= tileRanges[i * 4 + 3]; tileColumn++)
+                    counts[tileRow * tileColumns + tileColumn]++;
+            }
+        }
+
+        int[][] tiles = new int[counts.length][];
+        for (int tile = 0; tile < tiles.length; tile++) {
+            tiles[tile] = new int[counts[tile]];
+            counts[tile] = 0;
+        }
+
+        // Candidates are already sorted, so every tile's list is too
+        for (int i = 0; i < candidates.length; i++) {
+            for (int tileRow = tileRanges[i * 4]; tileRow <= tileRanges[i * 4 + 2]; tileRow++) {
+                for (int tileColumn = tileRanges[i * 4 + 1]; tileColumn <= tileRanges[i * 4 + 3]; tileColumn++) {
+                    int tile = tileRow * tileColumns + tileColumn;
+                    tiles[tile][counts[tile]++] = candidates[i];
+                }
+            }
+        }
+
+        tileCandidates = tiles;
+    }
+
+    /** The candidates the camera's ray at (x, y) could hit, nearest bounds first. "null" if the frame wasn't binned */
+    public int[] getTileCandidates(int x, int y) {
+        if (tileCandidates == null) return null;
+
+        return tileCandidates[x / tileHeight * tileColumns + y / tileWidth];
+    }
+
+    /**
+     * The first and last row and column of the camera's rays that could hit the bounds.
+     * A ray can only hit bounds that cross both its row's and its column's plane.
+     *
+     * @param range Written as first row, first column, last row, last column
+     * @return Returns "false" if no ray can hit the bounds
+     */
+    public boolean getScreenRange(float[] bounds, int[] range) {
+        range[1] = -1;
+        for (int y = 0; y < rayColumns; y++) {
+            if (!crossesPlane(bounds, columnPlanes, y)) continue;
+
+            if (range[1] < 0) range[1] = y;
+            range[3] = y;
+        }
+
+        range[0] = -1;
+        for (int x = 0; x < rayRows; x++) {
+            if (!crossesPlane(bounds, rowPlanes, x)) continue;
+
+            if (range[0] < 0) range[0] = x;
+            range[2] = x;
+        }
+
+        return range[0] >= 0 && range[1] >= 0;
+    }
+    // endregion
+
+    /** The plane through the camera holding both rays, as a unit normal. Rays pointing the same way leave a zero normal */
+    private void writePlane(float[] planes, int plane, int firstRay, int secondRay) {
+        int first = firstRay * 3;
+        int second = secondRay * 3;
+        float normalX = rayDirections[first + 1] * rayDirections[second + 2] - rayDirections[first + 2] * rayDirections[second + 1];
+        float normalY = rayDirections[first + 2] * rayDirections[second] - rayDirections[first] * rayDirections[second + 2];
+        float normalZ = rayDirections[first] * rayDirections[second + 1] - rayDirections[first + 1] * rayDirections[second];
+        float length = (float) Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+        if (length == 0) return;
+
+        planes[plane * 3] = normalX / length;
+        planes[plane * 3 + 1] = normalY / length;
+        planes[plane * 3 + 2] = normalZ / length;
+    }
+
+    /** True if the bounds are on both sides of a plane through the camera, or touching it */
+    private boolean crossesPlane(float[] bounds, float[] planes, int plane) {
+        float[] camera = { cameraPosition.x, cameraPosition.y, cameraPosition.z };
+        float distance = 0;
+        float extent = 0;
+
+        for (int axis = 0; axis < 3; axis++) {
+            float normal = planes[plane * 3 + axis];
+            distance += normal * ((bounds[axis] + bounds[axis + 3]) / 2 - camera[axis]);
+            extent += Math.abs(normal) * (bounds[axis + 3] - bounds[axis]) / 2;
+        }
+
+        return Math.abs(distance) <= extent + PLANE_EPSILON;
+    }
+
+    private int[] sortByBoundsDistance(int[] colliders) {
+        // Distances are never negative, so their bits sort the same way the floats do
+        long[] keys = new long[colliders.length];
+        for (int i = 0; i < colliders.length; i++)
+            keys[i] = (long) Float.floatToIntBits(boundsDistances[colliders[i]]) << 32 | colliders[i];
+
+        Arrays.sort(keys);
+
+        int[] sorted = new int[colliders.length];
+        for (int i = 0; i < keys.length; i++)
+            sorted[i] = (int) keys[i];
+
+        return sorted;
+    }
+
+    // region Projection
+    /**
+     * Writes a point as how far it is from the camera along forward, along sideways and straight up.
+     * A point in front of the camera is then seen at column offset sideways / forward and row offset up / forward
+     *
+     * @param view Written as forward, sideways, up
+     */
+    public void toViewSpace(float x, float y, float z, float[] view) {
+        float offsetX = x - cameraPosition.x;
+        float offsetZ = z - cameraPosition.z;
+        float determinant = forward[0] * sideways[1] - sideways[0] * forward[1];
+
+        view[0] = (offsetX * sideways[1] - sideways[0] * offsetZ) / determinant;
+        view[1] = (forward[0] * offsetZ - forward[1] * offsetX) / determinant;
+        view[2] = y - cameraPosition.y;
+    }
+
+    /** How far the column's rays point sideways for every unit forward, growing with the column */
+    public float getColumnOffset(int column) {
+        return columnOffsets[column];
+    }
+
+    /** How far the row's rays point up for every unit forward, shrinking with the row */
+    public float getRowOffset(int row) {
+        return rowOffsets[row];
+    }
+    // endregion
+
+    // region Wall Tree
+    /** "null" when there is no level */
+    public BinarySpacePartition getWallTree() {
+        return wallTree;
+    }
+
+    /** The index in this snapshot of a wall in the tree, or -1 if it isn't in it */
+    public int getWallCollider(int wall) {
+        return wallColliders[wall];
+    }
+
+    public boolean isInWallTree(int collider) {
+        return inWallTree[collider];
+    }
+    // endregion
+
+    public boolean hasCamera() {
+        return cameraPosition != null;
+    }
+
+    /** True if the colliders are in the same order as the previous frame and the camera hasn't moved or turned */
+    public boolean hasSameView(SceneSnapshot previous) {
+        if (previous == null || !hasCamera() || !previous.hasCamera()) return false;
+
+        return boundingVolumes.hasSameHitBoxes(previous.boundingVolumes) &&
+                cameraRotation == previous.cameraRotation &&
+                sameVector(cameraPosition, previous.cameraPosition);
+    }
+
+    /** Only works on a previous frame with the same view, see hasSameView */
+    public boolean hasChanged(SceneSnapshot previous, int collider) {
+        if (collisionOnly[collider] != previous.collisionOnly[collider]) return true;
+        if (images[collider] != previous.images[collider]) return true;
+        if (!sameColor(colors[collider], previous.colors[collider])) return true;
+
+        return !geometry.sameShape(previous.geometry, collider);
+    }
+
+    /** Writes the axis aligned bounds as minX, minY, minZ, maxX, maxY, maxZ */
+    public void getBounds(int collider, float[] bounds) {
+        geometry.getBounds(collider, bounds);
+    }
+
+    /** Slab test of one of the camera's rays against bounds from getBounds */
+    public boolean rayHitsBounds(int x, int y, float[] bounds) {
+        int offset = (x * rayColumns + y) * 3;
+        float[] origin = { cameraPosition.x, cameraPosition.y, cameraPosition.z };
+        float entry = 0;
+        float exit = rayDistance;
+
+        for (int axis = 0; axis < 3; axis++) {
+            float direction = rayDirections[offset + axis];
+
+            if (direction == 0) {
+                if (origin[axis] < bounds[axis] || origin[axis] > bounds[axis + 3]) return false;
+                continue;
+            }
+
+            float t1 = (bounds[axis] - origin[axis]) / direction;
+            float t2 = (bounds[axis + 3] - origin[axis]) / direction;
+            entry = Math.max(entry, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+
+            if (entry > exit) return false;
+        }
+
+        return true;
+    }
+
+    private boolean sameVector(Vector3 a, Vector3 b) {
+        if (a == null || b == null) return a == b;
+
+        return a.x == b.x && a.y == b.y && a.z == b.z;
+    }
+
+    private boolean sameColor(Color a, Color b) {
+        if (a == null || b == null) return a == b;
+
+        return a.toLong() == b.toLong();
+    }
+
+    public BoundingVolumeHierarchy getBoundingVolumes() {
+        return boundingVolumes;
+    }
+
+    public HitBox getHitBox(int collider) {
+        return boundingVolumes.getHitBox(collider);
+    }
+
+    /** The index of a HitBox in this snapshot, or -1 if it isn't in it */
+    public int indexOf(HitBox hitBox) {
+        return indices.getOrDefault(hitBox, -1);
+    }
+
+    public ColliderGeometry getGeometry() {
+        return geometry;
+    }
+
+    public Color getColor(int collider) {
+        return colors[collider];
+    }
+
+    /** Returns null for anything that isn't a sprite, or a sprite that is hidden */
+    public Texture getImage(int collider) {
+        return images[collider];
+    }
+
+    public boolean isCollisionOnly(int collider) {
+        return collisionOnly[collider];
+    }
+
+    public Vector3 getCameraPosition() {
+        return cameraPosition;
+    }
+
+    /** Axis is 0 for x, 1 for y and 2 for z */
+    public float getRayDirection(int x, int y, int axis) {
+        return rayDirections[(x * rayColumns + y) * 3 + axis];
+    }
+
+    public float getRayDistance() {
+        return rayDistance;
+    }
+}
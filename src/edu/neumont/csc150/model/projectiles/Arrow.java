@@ -1,7 +1,6 @@
 package edu.neumont.csc150.model.projectiles;
 
 import edu.neumont.csc150.model.colliders.CollisionEvent;
-import edu.neumont.csc150.model.colliders.HitBox;
 import edu.neumont.csc150.model.colliders.SphereCollider;
 import edu.neumont.csc150.model.enums.CollisionLayer;
 import edu.neumont.csc150.model.misc.Color;
@@ -24,7 +23,4 @@ public non-sealed class Arrow extends Projectile implements CollisionEvent {
         collider.setRadius(0.25f);
         collider.setColor(new Color(0x79444a));
     }
-
-    @Override
-    public void collisionCallback(HitBox hitBox) {}
 }
@@ -6,6 +6,7 @@ import edu.neumont.csc150.model.colliders.SphereCollider;
 import edu.neumont.csc150.model.enums.CollisionLayer;
 import edu.neumont.csc150.model.misc.Vector3;
 import edu.neumont.csc150.model.misc.raycast.HitInfo;
+import edu.neumont.csc150.service.CollisionService;
 import edu.neumont.csc150.service.ConfigService;
 import edu.neumont.csc150.view.Console;
 
@@ -37,19 +38,26 @@ public sealed abstract class Projectile implements CollisionEvent permits FireBo
     void action() {
         if (collider == null) return;
 
-        Vector3 moveBy = forward.scale(SPEED * configService.fixedDeltaTime);
-        collider.setPosition(collider.getPosition().add(moveBy));
+        Vector3 moveTo = collider.getPosition().add(forward.scale(SPEED * configService.fixedDeltaTime));
 
-        HitInfo<HitBox> collision = collider.getCollision();
-        if (collision != null) {
-            timer.cancel();
-            collision.getCollision().callback(collider);
-            ProjectileManager.remove(this);
+        // Swept so a projectile moving further than a wall is thick in one tick still hits it
+        CollisionService collisionService = ProjectileManager.collisionService;
+        HitInfo<HitBox> hit = collisionService.sweepSphere(collider, moveTo, collider.getCanCollideWithMask());
+        if (hit == null) {
+            collider.setPosition(moveTo);
+            return;
         }
+
+        collider.setPosition(hit.getHitPosition());
+        collisionService.addContact(collider, hit.getCollision());
     }
 
+    /** Whatever was hit gets its own callback from the same contact, so this only has to remove the projectile */
     @Override
-    public void collisionCallback(HitBox hitBox) {}
+    public void collisionCallback(HitBox hitBox) {
+        timer.cancel();
+        ProjectileManager.remove(this);
+    }
 
     SphereCollider getCollider() {
         return collider;
@@ -17,15 +17,12 @@ public class ProjectileManager {
         configService = (ConfigService) config;
     }
 
+    /** Only moves the projectiles, hits are handled by the collision callbacks after every collider has moved */
     public void update() {
-        // snapshot improvement generated by ChatGPT-4o
-        Set<Projectile> snapshot;
         synchronized (projectiles) {
-            snapshot = new LinkedHashSet<>(projectiles);
+            for (Projectile b : projectiles)
+                b.action();
         }
-
-        for (Projectile b : snapshot)
-            b.action();
     }
 
     static void add(Projectile proj) {
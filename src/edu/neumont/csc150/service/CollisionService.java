@@ -3,19 +3,56 @@ package edu.neumont.csc150.service;
 import edu.neumont.csc150.model.colliders.*;
 import edu.neumont.csc150.model.enums.CollisionLayer;
 import edu.neumont.csc150.model.enums.RenderLayer;
+import edu.neumont.csc150.model.misc.BinarySpacePartition;
+import edu.neumont.csc150.model.misc.BoundingVolumeHierarchy;
+import edu.neumont.csc150.model.misc.Camera;
 import edu.neumont.csc150.model.misc.Color;
-import edu.neumont.csc150.model.misc.Quadtree;
+import edu.neumont.csc150.model.misc.PotentiallyVisibleSet;
+import edu.neumont.csc150.model.misc.SpatialHash;
+import edu.neumont.csc150.model.misc.Texture;
 import edu.neumont.csc150.model.misc.Vector3;
+import edu.neumont.csc150.model.misc.raycast.ColliderGeometry;
 import edu.neumont.csc150.model.misc.raycast.HitInfo;
 import edu.neumont.csc150.model.misc.raycast.Raycast;
-import edu.neumont.csc150.view.Console;
+import edu.neumont.csc150.model.misc.raycast.SceneSnapshot;
 
-import java.awt.Rectangle;
 import java.util.*;
 
 public class CollisionService implements Injectable {
+    /** Used as a layer mask to skip the layer check entirely, even for colliders without any layers */
+    private static final int ALL_LAYERS = -1;
+    /** How close a swept sphere has to get to a box to count as touching it */
+    private static final float SWEEP_TOLERANCE = 1e-3f;
+    private static final int MAX_SWEEP_STEPS = 32;
+
     private final Set<HitBox> hitBoxes = new LinkedHashSet<>();
-    private final Quadtree quadtree = new Quadtree(1, new Rectangle(-100, -100, 200, 200));
+    private final ConfigService configService;
+    private final SpatialHash spatialHash;
+    /** HitBoxes that moved since the last query, they get rebucketed before the next one */
+    private final Set<HitBox> movedHitBoxes = new LinkedHashSet<>();
+    /** Every HitBox that can collide, kept sorted by its minimum X between ticks */
+    private HitBox[] sweepHitBoxes = new HitBox[0];
+    private float[] sweepMin = new float[0];
+    private float[] sweepMax = new float[0];
+    /** Set when HitBoxes are added or removed, the sweep list gets updated before the next pass */
+    private boolean sweepDirty = true;
+    private final List<Contact> contacts = new ArrayList<>();
+    /** Contacts found by sweeps since the last pass, they get sent with the next one */
+    private final List<Contact> sweptContacts = new ArrayList<>();
+    private final BoundingVolumeHierarchy boundingVolumes = new BoundingVolumeHierarchy();
+    /** Set when HitBoxes are added or removed, the hierarchy gets rebuilt before the next raycast */
+    private boolean boundingVolumesDirty = true;
+    /** Every collider's shape in the hierarchy's order, only colliders that changed get rewritten */
+    private final ColliderGeometry geometry = new ColliderGeometry();
+    /** What can be seen from where in the current level, "null" while no level is loaded */
+    private PotentiallyVisibleSet visibleSet;
+    /** The current level's walls from above, "null" while no level is loaded */
+    private BinarySpacePartition wallTree;
+
+    public CollisionService(Injectable config) {
+        configService = (ConfigService) config;
+        spatialHash = new SpatialHash(configService.broadphaseCellSize);
+    }
 
     @Override
     public void startService() {
@@ -25,10 +62,24 @@ public class CollisionService implements Injectable {
     public void stopService() {
     }
 
+    /**
+     * Tests if two HitBoxes are touching, without calling either of their callbacks.
+     * Callbacks are only sent by updateContacts.
+     */
     public HitInfo<HitBox> isColliding(HitBox hitBox1, HitBox hitBox2) {
+        return isColliding(hitBox1, hitBox2, hitBox1.getCanCollideWithMask());
+    }
+
+    /**
+     * Tests if two HitBoxes are touching, only if the second one is on any of the layers in the mask.
+     * This doesn't call either of their callbacks.
+     *
+     * @param layerMask A bit for each CollisionLayer, see CollisionLayer.mask
+     */
+    public HitInfo<HitBox> isColliding(HitBox hitBox1, HitBox hitBox2, int layerMask) {
         if (hitBox1 == hitBox2) return null;
 
-        if (!hitBox1.canCollideWithLayer(hitBox2.getCollisionLayers())) return null;
+        if (!hitBox2.containsCollisionLayer(layerMask)) return null;
 
         return switch (hitBox1) {
             case BoxCollider boxCollider when hitBox2 instanceof BoxCollider ->
@@ -44,138 +95,132 @@ public class CollisionService implements Injectable {
     }
 
     private HitInfo<HitBox> twoSphereColliders(SphereCollider sphere1, SphereCollider sphere2) {
-        float radius1 = sphere1.getRadius();
-        float radius2 = sphere2.getRadius();
+        float radii = sphere1.getRadius() + sphere2.getRadius();
         float distance = Vector3.squaredDistance(sphere1.getPosition(), sphere2.getPosition());
 
-        if (distance < Math.pow(radius1 + radius2, 2)) {
-            sphere2.callback(sphere1);
-            sphere1.callback(sphere2);
+        if (distance < radii * radii)
             return new HitInfo<>(sphere2.getPosition(), sphere2.getColor(), 0, sphere2);
-        }
 
         return null;
     }
 
     private HitInfo<HitBox> sphereAndBoxCollider(BoxCollider box, SphereCollider sphere, boolean returnSphere) {
-        float safeDistanceBox = box.getVerts()[0].subtract(box.getPosition()).squareMagnitude();
-        float safeDistanceSphere = sphere.getRadius() * sphere.getRadius();
+        Vector3 center = sphere.getPosition();
+        Vector3 boxCenter = box.getPosition();
+        float offsetX = center.x - boxCenter.x;
+        float offsetY = center.y - boxCenter.y;
+        float offsetZ = center.z - boxCenter.z;
+        float radius = sphere.getRadius();
 
-        if (Vector3.squaredDistance(box.getPosition(), sphere.getPosition()) > safeDistanceBox + safeDistanceSphere)
-            return null;
+        if (squaredDistanceToBox(box, offsetX, offsetY, offsetZ) > radius * radius) return null;
 
-        Vector3 normal = separatingAxisTest(sphere, box);
-        if (normal != null) {
-            if (returnSphere) {
-                sphere.callback(box);
-                box.callback(sphere);
-                return new HitInfo<>(sphere.getPosition(), sphere.getColor(), 0, sphere);
-            } else {
-                box.callback(sphere);
-                sphere.callback(box);
-                return new HitInfo<>(box.getPosition(), box.getColor(), 0, box, normal);
-            }
+        if (returnSphere)
+            return new HitInfo<>(sphere.getPosition(), sphere.getColor(), 0, sphere);
+
+        Vector3 normal = collisionNormal(box, offsetX, offsetY, offsetZ);
+        return new HitInfo<>(box.getPosition(), box.getColor(), 0, box, normal);
+    }
+
+    /** The squared distance from a point, given as an offset from the box's center, to the closest point on the box */
+    private float squaredDistanceToBox(BoxCollider box, float offsetX, float offsetY, float offsetZ) {
+        // Measured along each of the box's axes, only the parts outside the box count
+        float squaredDistance = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            float along = offsetX * box.getAxis(axis, 0) + offsetY * box.getAxis(axis, 1) + offsetZ * box.getAxis(axis, 2);
+            float outside = Math.abs(along) - box.getHalfExtent(axis);
+
+            if (outside > 0) squaredDistance += outside * outside;
         }
 
-        return null;
+        return squaredDistance;
     }
 
     private HitInfo<HitBox> twoBoxColliders(BoxCollider hitBox1, BoxCollider hitBox2) {
-        float safeDistance1 = hitBox1.getVerts()[0].subtract(hitBox1.getPosition()).squareMagnitude();
-        float safeDistance2 = hitBox2.getVerts()[0].subtract(hitBox2.getPosition()).squareMagnitude();
-
-        if (Vector3.squaredDistance(hitBox1.getPosition(), hitBox2.getPosition()) > safeDistance1 + safeDistance2)
+        Vector3 center1 = hitBox1.getPosition();
+        Vector3 center2 = hitBox2.getPosition();
+        float offsetX = center1.x - center2.x;
+        float offsetY = center1.y - center2.y;
+        float offsetZ = center1.z - center2.z;
+
+        // Boxes further apart than their bounding spheres can't touch
+        float reach = halfDiagonal(hitBox1) + halfDiagonal(hitBox2);
+        if (offsetX * offsetX + offsetY * offsetY + offsetZ * offsetZ > reach * reach)
             return null;
 
-        boolean isIntersecting;
-        Vector3 normal = separatingAxisTest(hitBox1, hitBox2);
-
-        if (hitBox1.getRotation() == hitBox2.getRotation())
-            isIntersecting = normal != null;
-        else isIntersecting = normal != null && separatingAxisTest(hitBox2, hitBox1) != null;
+        // Boxes only rotate around Y, so the face normals of both boxes are every axis that can separate them
+        if (separatedOnAxes(hitBox1, hitBox2, offsetX, offsetY, offsetZ)) return null;
+        if (
+                hitBox1.getRotation() != hitBox2.getRotation() &&
+                        separatedOnAxes(hitBox2, hitBox1, offsetX, offsetY, offsetZ)
+        ) return null;
 
-        if (isIntersecting) {
-            hitBox2.callback(hitBox1);
-            hitBox1.callback(hitBox2);
-            return new HitInfo<>(hitBox2.getPosition(), hitBox2.getColor(), 0, hitBox2, normal);
-        }
+        Vector3 normal = collisionNormal(hitBox2, offsetX, offsetY, offsetZ);
+        return new HitInfo<>(hitBox2.getPosition(), hitBox2.getColor(), 0, hitBox2, normal);
+    }
 
-        return null;
+    private float halfDiagonal(BoxCollider box) {
+        float x = box.getHalfExtent(0);
+        float y = box.getHalfExtent(1);
+        float z = box.getHalfExtent(2);
+        return (float) Math.sqrt(x * x + y * y + z * z);
     }
 
     /**
-     * Unless later updated, hit2 must be a BoxCollider
-     * for the intersecting normal to be returned
+     * Projects both boxes onto the local axes of the first one
      *
-     * @return the normal of the quad it intersected with
+     * @return Returns "true" if there is a gap between them on any of the axes
      */
-    private Vector3 separatingAxisTest(HitBox hit1, BoxCollider hit2) {
-        Vector3 collisionNormal = null;
-        // This is representing the quad that was intersected with
-        // It's calculated using the dot product between (hit1 - hit2) and the normal
-        float closestQuad = -Float.MAX_VALUE;
-
-        if (hit1 instanceof BoxCollider box1 && hit2 instanceof BoxCollider box2) {
-            for (Vector3 normal : box1.getNormals()) {
-                float box1Min = Float.MAX_VALUE;
-                float box1Max = -Float.MAX_VALUE;
-                float box2Min = Float.MAX_VALUE;
-                float box2Max = -Float.MAX_VALUE;
-                normal = normal.normalize();
-
-                for (Vector3 vertex : box1.getVerts()) {
-                    box1Min = Math.min(vertex.dot(normal), box1Min);
-                    box1Max = Math.max(vertex.dot(normal), box1Max);
-                }
-
-                for (Vector3 vertex : box2.getVerts()) {
-                    box2Min = Math.min(vertex.dot(normal), box2Min);
-                    box2Max = Math.max(vertex.dot(normal), box2Max);
-                }
-
-                if (
-                        (box1Max < box2Min || box1Min > box2Max) &&
-                                (box1Min < box2Min || box1Max > box2Max)
-                ) return null;
+    private boolean separatedOnAxes(BoxCollider box, BoxCollider other, float offsetX, float offsetY, float offsetZ) {
+        for (int axis = 0; axis < 3; axis++) {
+            float axisX = box.getAxis(axis, 0);
+            float axisY = box.getAxis(axis, 1);
+            float axisZ = box.getAxis(axis, 2);
+
+            float otherReach = 0;
+            for (int otherAxis = 0; otherAxis < 3; otherAxis++) {
+                float alignment = axisX * other.getAxis(otherAxis, 0) +
+                        axisY * other.getAxis(otherAxis, 1) +
+                        axisZ * other.getAxis(otherAxis, 2);
+                otherReach += other.getHalfExtent(otherAxis) * Math.abs(alignment);
             }
-        } else if (hit1 instanceof SphereCollider sphere && hit2 instanceof BoxCollider box) {
-            for (Vector3 normal : box.getNormals()) {
-                float boxMin = Float.MAX_VALUE;
-                float boxMax = -Float.MAX_VALUE;
-                float sphereMin = sphere.getPosition().dot(normal) - sphere.getRadius();
-                float sphereMax = sphere.getPosition().dot(normal) + sphere.getRadius();
-                normal = normal.normalize();
-
-                for (Vector3 vertex : box.getVerts()) {
-                    boxMin = Math.min(vertex.dot(normal), boxMin);
-                    boxMax = Math.max(vertex.dot(normal), boxMax);
-                }
 
-                if (
-                        (boxMax < sphereMin || boxMin > sphereMax) &&
-                                (boxMin < sphereMin || boxMax > sphereMax)
-                ) return null;
-            }
+            float distance = Math.abs(offsetX * axisX + offsetY * axisY + offsetZ * axisZ);
+            if (distance > box.getHalfExtent(axis) + otherReach) return true;
         }
 
-        for (int n = 0; n < (hit2).getAllNormals().length; n++) {
-            Vector3 normal = hit2.getAllNormals()[n];
+        return false;
+    }
 
-            float scaleOfAxis = switch (n % 3) {
-                case 0 -> hit2.getScale().x;
-                case 1 -> hit2.getScale().y;
-                case 2 -> hit2.getScale().z;
-                default -> throw new IllegalArgumentException("Unexpected value: " + n);
-            };
+    /**
+     * Picks the face of the box that the offset points through the most,
+     * scaled by the box's size so long walls don't win just for being long
+     *
+     * @return the normal of the quad it intersected with
+     */
+    private Vector3 collisionNormal(BoxCollider box, float offsetX, float offsetY, float offsetZ) {
+        int closestAxis = 0;
+        float closestSign = 1;
+        float closestQuad = -Float.MAX_VALUE;
+
+        // Checked in the order +x, +y, +z, -x, -y, -z
+        for (int n = 0; n < 6; n++) {
+            int axis = n % 3;
+            float sign = n < 3 ? 1 : -1;
+            float along = offsetX * box.getAxis(axis, 0) + offsetY * box.getAxis(axis, 1) + offsetZ * box.getAxis(axis, 2);
+            float currentQuad = sign * along / box.getHalfExtent(axis);
 
-            float currentQuad = hit1.getPosition().subtract(hit2.getPosition()).dot(normal) / scaleOfAxis;
             if (currentQuad > closestQuad) {
                 closestQuad = currentQuad;
-                collisionNormal = normal;
+                closestAxis = axis;
+                closestSign = sign;
             }
         }
 
-        return collisionNormal;
+        return new Vector3(
+                closestSign * box.getAxis(closestAxis, 0),
+                closestSign * box.getAxis(closestAxis, 1),
+                closestSign * box.getAxis(closestAxis, 2)
+        );
     }
 
     /**
@@ -185,49 +230,390 @@ public class CollisionService implements Injectable {
      * Returns "null" if it intersects with nothing
      */
     public HitInfo<HitBox> raycastHit(Raycast raycast) {
-        float previousHitDistance = Float.MAX_VALUE;
-        HitInfo<HitBox> previousHit = null;
+        return raycastHit(raycast, ALL_LAYERS);
+    }
+
+    /**
+     * Tests if the raycast hit another collider.
+     *
+     * @return Returns "HitInfo" for information on the collided object.
+     * Returns "null" if it intersects with nothing
+     */
+    public HitInfo<HitBox> raycastHit(Raycast raycast, CollisionLayer[] layer) {
+        return raycastHit(raycast, CollisionLayer.maskOf(layer));
+    }
+
+    /**
+     * Tests if the raycast hit a collider on any of the layers in the mask.
+     *
+     * @param layerMask A bit for each CollisionLayer, see CollisionLayer.mask
+     * @return Returns "HitInfo" for information on the collided object.
+     * Returns "null" if it intersects with nothing
+     */
+    public HitInfo<HitBox> raycastHit(Raycast raycast, int layerMask) {
+        Vector3 direction = raycast.getDirection();
+        boolean renderOnly = raycast.containsRenderLayer(RenderLayer.RENDER_ONLY);
 
         synchronized (hitBoxes) {
-            HashSet<HitBox> snapshot = new HashSet<>(hitBoxes);
-            for (HitBox hitBox : snapshot) {
-                HitInfo<HitBox> hit = testForRaycastCollision(hitBox, raycast, previousHitDistance);
+            refitBoundingVolumes();
+
+            return boundingVolumes.raycast(raycast.position, direction, raycast.DISTANCE,
+                    (collider, nearestDistance) -> {
+                        HitBox hitBox = geometry.getHitBox(collider);
+                        if (layerMask != ALL_LAYERS && !hitBox.containsCollisionLayer(layerMask)) return null;
+                        if (renderOnly && (hitBox.getRenderLayerMask() & RenderLayer.COLLISION_ONLY.mask) != 0)
+                            return null;
+
+                        return testForRaycastCollision(
+                                collider,
+                                raycast.position,
+                                direction,
+                                Math.min(raycast.DISTANCE, nearestDistance)
+                        );
+                    }
+            );
+        }
+    }
 
-                if (hit != null && hit.getDistance() < previousHitDistance) {
-                    previousHitDistance = hit.getDistance();
-                    previousHit = hit;
-                }
-            }
+    /**
+     * Tests if any wall is between two points, using the level's wall tree.
+     * Without a level loaded this falls back to a raycast against the environment.
+     * <br>
+     * The tree only visits the walls the line crosses, so the potentially visible set
+     * isn't checked here, it's only used to cull the camera's snapshot.
+     *
+     * @return Returns "true" if a wall is in the way
+     */
+    public boolean isBlockedByWalls(Vector3 from, Vector3 to) {
+        BinarySpacePartition tree;
+        synchronized (hitBoxes) {
+            tree = wallTree;
         }
 
-        return previousHit;
+        if (tree != null) return tree.isBlocked(from, to);
+
+        Vector3 offset = to.subtract(from);
+        Raycast raycast = new Raycast(from, offset, offset.magnitude());
+        return raycastIntersects(raycast, CollisionLayer.ENVIRONMENT.mask);
     }
 
     /**
-     * Tests if the raycast hit another collider.
+     * Tests one of the camera's rays against a frame's snapshot.
+     * This doesn't lock anything, so it can run while gameplay changes the colliders.
      *
      * @return Returns "HitInfo" for information on the collided object.
      * Returns "null" if it intersects with nothing
      */
-    public HitInfo<HitBox> raycastHit(Raycast raycast, CollisionLayer[] layer) {
-        float previousHitDistance = Float.MAX_VALUE;
-        HitInfo<HitBox> previousHit = null;
+    public HitInfo<HitBox> raycastHit(SceneSnapshot snapshot, int x, int y) {
+        Vector3 origin = snapshot.getCameraPosition();
+        float directionX = snapshot.getRayDirection(x, y, 0);
+        float directionY = snapshot.getRayDirection(x, y, 1);
+        float directionZ = snapshot.getRayDirection(x, y, 2);
+        float rayDistance = snapshot.getRayDistance();
+        int[] tileCandidates = snapshot.getTileCandidates(x, y);
+
+        if (tileCandidates != null) {
+            HitInfo<HitBox> nearest = null;
+            float maxDistance = rayDistance;
+
+            // The tile's colliders are sorted by their bounds, so none after one further than the nearest hit can be closer
+            for (int collider : tileCandidates) {
+                if (snapshot.getBoundsDistance(collider) > maxDistance) break;
+
+                HitInfo<HitBox> hit = testForRaycastCollision(
+                        snapshot,
+                        collider,
+                        origin,
+                        directionX,
+                        directionY,
+                        directionZ,
+                        maxDistance
+                );
+
+                if (hit != null && hit.getDistance() < maxDistance) {
+                    nearest = hit;
+                    maxDistance = hit.getDistance();
+                }
+            }
 
-        synchronized (hitBoxes) {
-            HashSet<HitBox> snapshot = new HashSet<>(hitBoxes);
-            for (HitBox hitBox : snapshot) {
-                if (!hitBox.containsCollisionLayer(layer)) continue;
+            return nearest;
+        }
 
-                HitInfo<HitBox> hit = testForRaycastCollision(hitBox, raycast, previousHitDistance);
+        return snapshot.getBoundingVolumes().raycast(origin, directionX, directionY, directionZ, rayDistance,
+                (collider, nearestDistance) -> testForRaycastCollision(
+                        snapshot,
+                        collider,
+                        origin,
+                        directionX,
+                        directionY,
+                        directionZ,
+                        Math.min(rayDistance, nearestDistance)
+                )
+        );
+    }
 
-                if (hit != null && hit.getDistance() < previousHitDistance) {
-                    previousHitDistance = hit.getDistance();
-                    previousHit = hit;
+    /**
+     * Tests a whole column of the camera's rays against a frame's snapshot.
+     * <br>
+     * Boxes only ever rotate around Y, so every wall is a prism standing on its footprint.
+     * One 2D ray against the footprints gives where the column enters and leaves each wall,
+     * and each row only has to check where it is between the wall's bottom and top.
+     * Spheres and sprites the column passes over are still tested per row, but only up to the wall.
+     *
+     * @param hits Filled with the nearest hit for every row, "null" where nothing was hit
+     */
+    public void raycastColumn(SceneSnapshot snapshot, int y, HitInfo<HitBox>[] hits) {
+        Vector3 origin = snapshot.getCameraPosition();
+        float rayDistance = snapshot.getRayDistance();
+        int[] candidates = snapshot.getCandidates();
+        int colliders = candidates.length;
+        ColliderGeometry geometry = snapshot.getGeometry();
+
+        // Every row in a column points the same way along the ground, only how fast it moves along it changes
+        float groundX = snapshot.getRayDirection(0, y, 0);
+        float groundZ = snapshot.getRayDirection(0, y, 2);
+        float groundLength = (float) Math.sqrt(groundX * groundX + groundZ * groundZ);
+
+        if (groundLength == 0) {
+            for (int x = 0; x < hits.length; x++)
+                hits[x] = raycastHit(snapshot, x, y);
+
+            return;
+        }
+
+        // How far along the ground each row moves for every unit of distance, compared to the first row,
+        // and the steepest any row climbs or falls for every unit along the ground
+        float[] groundScales = new float[hits.length];
+        float minSlope = Float.MAX_VALUE;
+        float maxSlope = -Float.MAX_VALUE;
+
+        for (int x = 0; x < hits.length; x++) {
+            float directionX = snapshot.getRayDirection(x, y, 0);
+            float directionZ = snapshot.getRayDirection(x, y, 2);
+            groundScales[x] = (float) Math.sqrt(directionX * directionX + directionZ * directionZ) / groundLength;
+            minSlope = Math.min(minSlope, snapshot.getRayDirection(x, y, 1) / groundScales[x]);
+            maxSlope = Math.max(maxSlope, snapshot.getRayDirection(x, y, 1) / groundScales[x]);
+        }
+
+        // Walls are kept sorted by where the column enters them, measured along the ground direction
+        int[] walls = new int[colliders];
+        float[] wallEntries = new float[colliders];
+        float[] wallExits = new float[colliders];
+        int[] wallCount = new int[1];
+        int[] others = new int[colliders];
+        int otherCount = 0;
+        float[] interval = new float[2];
+
+        for (int collider : candidates) {
+            // The level's walls are found through the wall tree below
+            if (snapshot.isInWallTree(collider)) continue;
+
+            if (snapshot.getHitBox(collider) instanceof BoxCollider) {
+                if (!footprintInterval(geometry, collider, origin, groundX, groundZ, interval)) continue;
+
+                wallCount[0] = insertWall(collider, interval, walls, wallEntries, wallExits, wallCount[0]);
+            } else if (groundBoundsHit(geometry, collider, origin, groundX, groundZ)) {
+                others[otherCount++] = collider;
+            }
+        }
+
+        BinarySpacePartition wallTree = snapshot.getWallTree();
+        if (wallTree != null) {
+            float lowestSlope = minSlope;
+            float highestSlope = maxSlope;
+
+            // The furthest any row reaches along the ground, no row moves faster along it than 1 unit per unit
+            wallTree.raycast(origin.x, origin.z, groundX, groundZ, rayDistance / groundLength, (wall, distance, maxDistance) -> {
+                int collider = snapshot.getWallCollider(wall);
+                if (collider < 0 || snapshot.isCulled(collider)) return maxDistance;
+
+                // A wall is crossed once for every edge the column passes through
+                for (int w = 0; w < wallCount[0]; w++) {
+                    if (walls[w] == collider) return maxDistance;
                 }
+
+                if (!footprintInterval(geometry, collider, origin, groundX, groundZ, interval)) return maxDistance;
+
+                wallCount[0] = insertWall(collider, interval, walls, wallEntries, wallExits, wallCount[0]);
+
+                // Once every row is between a wall's bottom and top where it enters, nothing behind it can be seen
+                float entry = interval[0];
+                if (entry >= 0 &&
+                        origin.y + lowestSlope * entry >= geometry.getBound(collider, 1) &&
+                        origin.y + highestSlope * entry <= geometry.getBound(collider, 4))
+                    return Math.min(maxDistance, entry);
+
+                return maxDistance;
+            });
+        }
+
+        for (int x = 0; x < hits.length; x++) {
+            float directionX = snapshot.getRayDirection(x, y, 0);
+            float directionY = snapshot.getRayDirection(x, y, 1);
+            float directionZ = snapshot.getRayDirection(x, y, 2);
+            float groundScale = groundScales[x];
+            float maxDistance = rayDistance;
+            HitInfo<HitBox> nearest = null;
+
+            for (int w = 0; w < wallCount[0]; w++) {
+                float entry = wallEntries[w] / groundScale;
+                if (entry > maxDistance) break;
+
+                float bottom = geometry.getBound(walls[w], 1);
+                float top = geometry.getBound(walls[w], 4);
+                float low = entry;
+                float high = wallExits[w] / groundScale;
+
+                // Only the part of the ray between the wall's bottom and top can hit it
+                if (directionY != 0) {
+                    float bottomDistance = (bottom - origin.y) / directionY;
+                    float topDistance = (top - origin.y) / directionY;
+                    low = Math.max(low, Math.min(bottomDistance, topDistance));
+                    high = Math.min(high, Math.max(bottomDistance, topDistance));
+                } else if (origin.y < bottom || origin.y > top) continue;
+
+                if (low > high || high < 0) continue;
+
+                // From inside a wall the nearest face is the one the ray leaves through
+                float distance = low >= 0 ? low : high;
+                if (distance > maxDistance) continue;
+
+                nearest = hitAt(
+                        origin,
+                        directionX,
+                        directionY,
+                        directionZ,
+                        distance,
+                        snapshot.getColor(walls[w]),
+                        snapshot.getHitBox(walls[w])
+                );
+                maxDistance = distance;
             }
+
+            for (int o = 0; o < otherCount; o++) {
+                HitInfo<HitBox> hit = testForRaycastCollision(
+                        snapshot,
+                        others[o],
+                        origin,
+                        directionX,
+                        directionY,
+                        directionZ,
+                        maxDistance
+                );
+
+                if (hit != null && hit.getDistance() < maxDistance) {
+                    nearest = hit;
+                    maxDistance = hit.getDistance();
+                }
+            }
+
+            hits[x] = nearest;
+        }
+    }
+
+    /** Keeps the walls sorted by their entry, returns the new amount of walls */
+    private int insertWall(int collider, float[] interval, int[] walls, float[] wallEntries, float[] wallExits, int wallCount) {
+        int index = wallCount;
+        while (index > 0 && wallEntries[index - 1] > interval[0]) {
+            walls[index] = walls[index - 1];
+            wallEntries[index] = wallEntries[index - 1];
+            wallExits[index] = wallExits[index - 1];
+            index--;
+        }
+
+        walls[index] = collider;
+        wallEntries[index] = interval[0];
+        wallExits[index] = interval[1];
+        return wallCount + 1;
+    }
+
+    /**
+     * Clips a 2D ray along the ground against a box's footprint
+     *
+     * @param interval Set to how far along the direction the ray enters and leaves the footprint,
+     *                 the entry is negative when the origin is inside it
+     * @return Returns "false" if the ray misses the footprint
+     */
+    private boolean footprintInterval(
+            ColliderGeometry geometry,
+            int box,
+            Vector3 origin,
+            float directionX,
+            float directionZ,
+            float[] interval
+    ) {
+        // The bottom quad is the box's footprint
+        int footprint = geometry.getQuadStart(box) + 4;
+
+        // The winding decides which side of each edge is inside
+        float area = 0;
+        for (int i = 0; i < 4; i++) {
+            int next = (i + 1) % 4;
+            area += geometry.getCorner(footprint, i, 0) * geometry.getCorner(footprint, next, 2) -
+                    geometry.getCorner(footprint, next, 0) * geometry.getCorner(footprint, i, 2);
+        }
+
+        if (area == 0) return false;
+
+        float winding = Math.signum(area);
+        float entry = -Float.MAX_VALUE;
+        float exit = Float.MAX_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            float aX = geometry.getCorner(footprint, i, 0);
+            float aZ = geometry.getCorner(footprint, i, 2);
+            float bX = geometry.getCorner(footprint, (i + 1) % 4, 0);
+            float bZ = geometry.getCorner(footprint, (i + 1) % 4, 2);
+            float normalX = -(bZ - aZ) * winding;
+            float normalZ = (bX - aX) * winding;
+
+            // Positive when the origin is on the inside of the edge
+            float distance = normalX * (origin.x - aX) + normalZ * (origin.z - aZ);
+            float rate = normalX * directionX + normalZ * directionZ;
+
+            if (rate == 0) {
+                if (distance < 0) return false;
+                continue;
+            }
+
+            float crossing = -distance / rate;
+            if (rate > 0) entry = Math.max(entry, crossing);
+            else exit = Math.min(exit, crossing);
+
+            if (entry > exit) return false;
+        }
+
+        interval[0] = entry;
+        interval[1] = exit;
+        return true;
+    }
+
+    /** Tests a 2D ray along the ground against the footprint of a sphere's or sprite's bounds */
+    private boolean groundBoundsHit(ColliderGeometry geometry, int collider, Vector3 origin, float directionX, float directionZ) {
+        float minX = geometry.getBound(collider, 0);
+        float minZ = geometry.getBound(collider, 2);
+        float maxX = geometry.getBound(collider, 3);
+        float maxZ = geometry.getBound(collider, 5);
+
+        float entry = 0;
+        float exit = Float.MAX_VALUE;
+        float[][] slabs = { { minX, maxX, origin.x, directionX }, { minZ, maxZ, origin.z, directionZ } };
+
+        for (float[] slab : slabs) {
+            if (slab[3] == 0) {
+                if (slab[2] < slab[0] || slab[2] > slab[1]) return false;
+                continue;
+            }
+
+            float t1 = (slab[0] - slab[2]) / slab[3];
+            float t2 = (slab[1] - slab[2]) / slab[3];
+            entry = Math.max(entry, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+
+            if (entry > exit) return false;
         }
 
-        return previousHit;
+        return true;
     }
 
     /**
@@ -236,12 +622,7 @@ public class CollisionService implements Injectable {
      * @return Returns "true" if the raycast hits anything
      */
     public boolean raycastIntersects(Raycast raycast) {
-        for (HitBox hitBox : hitBoxes) {
-            HitInfo<HitBox> hit = testForRaycastCollision(hitBox, raycast, Float.MAX_VALUE);
-            if (hit != null) return true;
-        }
-
-        return false;
+        return raycastHit(raycast) != null;
     }
 
     /**
@@ -250,178 +631,513 @@ public class CollisionService implements Injectable {
      * @return Returns "true" if the raycast hits anything
      */
     public boolean raycastIntersects(Raycast raycast, CollisionLayer[] layer) {
-        for (HitBox hitBox : hitBoxes) {
-            if (!hitBox.containsCollisionLayer(layer)) continue;
-
-            HitInfo<HitBox> hit = testForRaycastCollision(hitBox, raycast, Float.MAX_VALUE);
-            if (hit != null) return true;
-        }
-
-        return false;
+        return raycastHit(raycast, layer) != null;
     }
 
-    private HitInfo<HitBox> testForRaycastCollision(HitBox hitBox, Raycast raycast, float previousHitDistance) {
-        float nearestDistance = Float.MAX_VALUE;
-        Vector3 intersection = null;
-        if (
-                raycast.containsRenderLayer(RenderLayer.RENDER_ONLY) &&
-                        hitBox.containsRenderLayer(RenderLayer.COLLISION_ONLY)
-        ) return null;
+    /**
+     * Tests if the raycast hits anything on the layers in the mask.
+     *
+     * @return Returns "true" if the raycast hits anything
+     */
+    public boolean raycastIntersects(Raycast raycast, int layerMask) {
+        return raycastHit(raycast, layerMask) != null;
+    }
 
-        if (hitBox instanceof BoxCollider boxCollider) {
-            Vector3[][] quads = boxCollider.getQuads();
-            if (quads == null) return null;
+    private HitInfo<HitBox> testForRaycastCollision(int collider, Vector3 origin, Vector3 direction, float maxDistance) {
+        HitBox hitBox = geometry.getHitBox(collider);
+        Texture image = hitBox instanceof SpriteCollider sprite ? sprite.getImage() : null;
+
+        return raycastCollider(
+                geometry,
+                collider,
+                hitBox.getColor(),
+                image,
+                null,
+                origin,
+                direction.x,
+                direction.y,
+                direction.z,
+                maxDistance
+        );
+    }
 
-            for (Vector3[] quad : quads) {
-                HitInfo<HitBox> collision = collidedWithPlane(quad, raycast, previousHitDistance);
+    private HitInfo<HitBox> testForRaycastCollision(
+            SceneSnapshot snapshot,
+            int collider,
+            Vector3 origin,
+            float directionX,
+            float directionY,
+            float directionZ,
+            float maxDistance
+    ) {
+        // Culling already dropped everything outside the view and anything marked as collision only
+        if (snapshot.isCulled(collider)) return null;
+
+        return raycastCollider(
+                snapshot.getGeometry(),
+                collider,
+                snapshot.getColor(collider),
+                snapshot.getImage(collider),
+                snapshot.getBackFacingQuads(),
+                origin,
+                directionX,
+                directionY,
+                directionZ,
+                maxDistance
+        );
+    }
 
-                if (collision != null) {
-                    intersection = collision.getHitPosition();
-                    nearestDistance = Math.min(nearestDistance, collision.getDistance());
+    /** @param backFacing Quads that are skipped, "null" to test every quad */
+    private HitInfo<HitBox> raycastCollider(
+            ColliderGeometry geometry,
+            int collider,
+            Color color,
+            Texture image,
+            boolean[] backFacing,
+            Vector3 origin,
+            float directionX,
+            float directionY,
+            float directionZ,
+            float maxDistance
+    ) {
+        HitBox hitBox = geometry.getHitBox(collider);
+
+        return switch (hitBox) {
+            case BoxCollider _ -> {
+                float nearest = -1;
+                int start = geometry.getQuadStart(collider);
+
+                for (int quad = start; quad < start + geometry.getQuadCount(collider); quad++) {
+                    if (backFacing != null && backFacing[quad]) continue;
+
+                    float distance = geometry.intersectQuad(
+                            quad,
+                            origin.x,
+                            origin.y,
+                            origin.z,
+                            directionX,
+                            directionY,
+                            directionZ,
+                            maxDistance
+                    );
+
+                    if (distance >= 0) {
+                        nearest = distance;
+                        maxDistance = distance;
+                    }
                 }
+
+                yield nearest < 0 ? null : hitAt(origin, directionX, directionY, directionZ, nearest, color, hitBox);
+            }
+            case SphereCollider _ -> {
+                float distance = geometry.intersectSphere(
+                        collider,
+                        origin.x,
+                        origin.y,
+                        origin.z,
+                        directionX,
+                        directionY,
+                        directionZ,
+                        maxDistance
+                );
+                yield distance < 0 ? null : hitAt(origin, directionX, directionY, directionZ, distance, color, hitBox);
             }
+            case SpriteCollider sprite ->
+                    raycastSprite(geometry, collider, sprite, image, origin, directionX, directionY, directionZ, maxDistance);
+        };
+    }
 
-            return new HitInfo<>(intersection, boxCollider.getColor(), nearestDistance, boxCollider);
-        } else if (hitBox instanceof SphereCollider sphere) {
-            // L is defined as the sphere center pointing to the raycast (P - C)
-            Vector3 L = raycast.position.subtract(sphere.getPosition());
-            Vector3 D = raycast.getDirection();
-            float r = sphere.getRadius();
+    private HitInfo<HitBox> raycastSprite(
+            ColliderGeometry geometry,
+            int collider,
+            SpriteCollider sprite,
+            Texture image,
+            Vector3 origin,
+            float directionX,
+            float directionY,
+            float directionZ,
+            float maxDistance
+    ) {
+        if (image == null) return null;
+
+        float distance = geometry.intersectQuad(
+                geometry.getQuadStart(collider),
+                origin.x,
+                origin.y,
+                origin.z,
+                directionX,
+                directionY,
+                directionZ,
+                maxDistance
+        );
+        if (distance < 0) return null;
+
+        // Where the ray hit, relative to the sprite's center and stretched to -1 to 1
+        float x = (origin.x + directionX * distance - geometry.getCenter(collider, 0)) * 2.0f;
+        float y = (origin.y + directionY * distance - geometry.getCenter(collider, 1)) * 2.0f;
+        float z = (origin.z + directionZ * distance - geometry.getCenter(collider, 2)) * 2.0f;
+
+        float alongRight = x * geometry.getRight(collider, 0) + y * geometry.getRight(collider, 1) +
+                z * geometry.getRight(collider, 2);
+        int sign = alongRight >= 0 ? 1 : -1;
+        float u = sign * (float) Math.sqrt(x * x + z * z) / geometry.getScale(collider, 0);
+        float v = y / geometry.getScale(collider, 1);
+
+        // The sample is checked while it is still packed, a Color is only made once it is a hit
+        Color color = sprite.getColor(image, u, v);
+        if (color == null) return null;
+
+        return hitAt(origin, directionX, directionY, directionZ, distance, color, sprite);
+    }
 
-            if (D.dot(D) == 0) return null;
+    /** Only a hit makes a Vector3, a miss doesn't allocate anything */
+    private HitInfo<HitBox> hitAt(
+            Vector3 origin,
+            float directionX,
+            float directionY,
+            float directionZ,
+            float distance,
+            Color color,
+            HitBox hitBox
+    ) {
+        Vector3 position = new Vector3(
+                origin.x + directionX * distance,
+                origin.y + directionY * distance,
+                origin.z + directionZ * distance
+        );
+
+        return new HitInfo<>(position, color, distance, hitBox);
+    }
 
-            float discriminant = 4 * D.dot(L) * D.dot(L) - 4 * D.dot(D) * (L.dot(L) - r * r);
+    public void addHitBox(HitBox hitBox) {
+        synchronized (hitBoxes) {
+            hitBoxes.add(hitBox);
+            movedHitBoxes.add(hitBox);
+            boundingVolumesDirty = true;
+            sweepDirty = true;
+        }
+    }
 
-            if (discriminant < 0) return null;
+    public void removeHitBox(HitBox hitBox) {
+        synchronized (hitBoxes) {
+            boolean removed = hitBoxes.remove(hitBox);
+            boundingVolumesDirty |= removed;
+            sweepDirty |= removed;
+            movedHitBoxes.remove(hitBox);
+            spatialHash.remove(hitBox);
+        }
+    }
 
-            // t is the distance to the intersection
-            float t_pos = (float) (-2 * D.dot(L) + Math.sqrt(discriminant)) / 2 * D.dot(D);
-            float t_neg = (float) (-2 * D.dot(L) - Math.sqrt(discriminant)) / 2 * D.dot(D);
+    /** Rebuilds the bounding volume hierarchy from every HitBox, this should be called when a level loads */
+    public void buildBoundingVolumes() {
+        synchronized (hitBoxes) {
+            boundingVolumes.build(hitBoxes);
+            geometry.build(boundingVolumes);
+            boundingVolumesDirty = false;
+        }
+    }
 
-            if (t_pos < 0 && t_neg < 0) return null;
+    /** Updates the bounding volume hierarchy for colliders that moved, this should be called once per frame */
+    public void refitBoundingVolumes() {
+        synchronized (hitBoxes) {
+            if (boundingVolumesDirty) buildBoundingVolumes();
+            else if (geometry.update()) boundingVolumes.refit();
+        }
+    }
 
-            Vector3 inter_pos = raycast.position.add(raycast.getDirection().scale(t_pos));
-            Vector3 inter_neg = raycast.position.add(raycast.getDirection().scale(t_neg));
+    /**
+     * Refits the hierarchy and copies every collider and the camera for one frame.
+     * The render workers trace against the copy, so they never need the lock.
+     */
+    public SceneSnapshot takeSnapshot(Camera camera) {
+        SceneSnapshot snapshot;
 
-            if (inter_pos.squareMagnitude() < inter_neg.squareMagnitude() && t_pos > 0) {
-                intersection = inter_pos;
-                nearestDistance = t_pos;
-            } else if (inter_neg.squareMagnitude() < inter_pos.squareMagnitude() && t_neg > 0) {
-                intersection = inter_neg;
-                nearestDistance = t_neg;
-            } else return null;
+        synchronized (hitBoxes) {
+            refitBoundingVolumes();
+            snapshot = new SceneSnapshot(boundingVolumes, geometry, camera, visibleSet, wallTree);
+        }
 
-            return new HitInfo<>(intersection, sphere.getColor(), nearestDistance, sphere);
-        } else if (hitBox instanceof SpriteCollider sprite) {
-            HitInfo<HitBox> collision = collidedWithPlane(sprite.getVerts(), raycast, previousHitDistance);
+        // These only change the copy, so they don't need the lock
+        if (configService.spriteRasterization) snapshot.splitSprites();
+        if (configService.tileBinning)
+            snapshot.binTiles(configService.renderTileWidth, configService.renderTileHeight);
 
-            if (collision != null) {
-                intersection = collision.getHitPosition();
+        return snapshot;
+    }
 
-                Vector3 intersectionOnPlane = intersection.subtract(sprite.getPosition()).scale(2.0f);
-                int sign = sprite.getRight().dot(intersectionOnPlane) >= 0 ? 1 : -1;
-                float xSquared = intersectionOnPlane.x * intersectionOnPlane.x;
-                float zSquared = intersectionOnPlane.z * intersectionOnPlane.z;
-                intersectionOnPlane.x = sign * (float) Math.sqrt(xSquared + zSquared) / sprite.getScale().x;
-                intersectionOnPlane.y /= sprite.getScale().y;
+    /** Set when a level loads and cleared with "null" when it unloads, the level's walls must not move while it's set */
+    public void setVisibleSet(PotentiallyVisibleSet visibleSet) {
+        synchronized (hitBoxes) {
+            this.visibleSet = visibleSet;
+        }
+    }
 
-                Color color = sprite.getColor(intersectionOnPlane.x, intersectionOnPlane.y);
+    /** Set when a level loads and cleared with "null" when it unloads, the level's walls must not move while it's set */
+    public void setWallTree(BinarySpacePartition wallTree) {
+        synchronized (hitBoxes) {
+            this.wallTree = wallTree;
+        }
+    }
 
-                if (color == null)
-                    return null;
+    /**
+     * Returns all HitBoxes, ignoring the spatial hash
+     */
+    public Set<HitBox> getHitBoxes() {
+        synchronized (hitBoxes) {
+            return hitBoxes;
+        }
+    }
 
-                if (color.getConsoleColor() == Console.TextColor.DEFAULT && !ColorService.FULL_ANSI_COLOR_SUPPORT)
-                    return null;
+    /**
+     * Finds every pair of touching HitBoxes with sweep and prune on X, then sends their callbacks.
+     * This should be called once per tick, after everything has moved.
+     * <br>
+     * Callbacks are only sent once every pair has been tested, so they can freely add and remove HitBoxes.
+     * A pair is skipped if a callback before it removed either HitBox.
+     */
+    public void updateContacts() {
+        synchronized (hitBoxes) {
+            if (sweepDirty) updateSweepHitBoxes();
 
-                return new HitInfo<>(intersection, color, collision.getDistance(), sprite);
+            float[] bounds = new float[6];
+            for (int i = 0; i < sweepHitBoxes.length; i++) {
+                sweepHitBoxes[i].getBounds(bounds, 0);
+                sweepMin[i] = bounds[0];
+                sweepMax[i] = bounds[3];
             }
-        }
 
-        return null;
-    }
+            sortSweepHitBoxes();
 
-    private HitInfo<HitBox> collidedWithPlane(Vector3[] verts, Raycast raycast, float previousHitDistance) {
-        // Part of the logic came from ChatGPT-4o and Grok3
-        // Modified and corrected by me
+            contacts.clear();
+            for (int i = 0; i < sweepHitBoxes.length; i++) {
+                HitBox first = sweepHitBoxes[i];
 
-        if (verts == null) return null;
+                // Everything after this starts further along X, so stop once they start past this one's end
+                for (int j = i + 1; j < sweepHitBoxes.length && sweepMin[j] <= sweepMax[i]; j++) {
+                    HitBox second = sweepHitBoxes[j];
+                    HitInfo<HitBox> hit = null;
 
-        // Points on one of the rectangle's planes
-        Vector3 a = verts[0];
-        Vector3 b = verts[1];
-        Vector3 c = verts[2];
-        Vector3 d = verts[3];
+                    if (first.canCollideWith(second))
+                        hit = isColliding(first, second);
+                    else if (second.canCollideWith(first))
+                        hit = isColliding(second, first);
 
-        if (a == null || b == null || c == null || d == null) return null;
-        Vector3 normal = b.subtract(a).cross(c.subtract(a));
+                    if (hit != null) contacts.add(new Contact(first, second));
+                }
+            }
 
-        if (Math.abs(raycast.getDirection().dot(normal)) < 1e-6)
-            return null;
+            for (Contact swept : sweptContacts) {
+                if (!hasContact(swept.first(), swept.second())) contacts.add(swept);
+            }
 
-        // t is from the equation: (P + tD - C) dot n = 0
-        float t = -((raycast.position.subtract(a)).dot(normal))
-                / raycast.getDirection().dot(normal);
+            sweptContacts.clear();
+        }
 
-        if (t > raycast.DISTANCE || t < 0 || t > previousHitDistance)
-            return null;
+        for (Contact contact : contacts) {
+            synchronized (hitBoxes) {
+                if (!hitBoxes.contains(contact.first()) || !hitBoxes.contains(contact.second())) continue;
+            }
 
-        Vector3 intersection = raycast.position.add(raycast.getDirection().scale(t));
+            contact.second().callback(contact.first());
+            contact.first().callback(contact.second());
+        }
+    }
 
-        // Edge Vectors
-        Vector3 edge1 = a.subtract(b);
-        Vector3 edge2 = b.subtract(c);
-        Vector3 edge3 = c.subtract(d);
-        Vector3 edge4 = d.subtract(a);
+    /**
+     * Sends the callbacks for two HitBoxes with the next updateContacts, even if they aren't touching by then.
+     * This is for contacts found by sweepSphere, where the HitBox stops just short of what it hit.
+     */
+    public void addContact(HitBox first, HitBox second) {
+        synchronized (hitBoxes) {
+            sweptContacts.add(new Contact(first, second));
+        }
+    }
 
-        Vector3 c1 = intersection.subtract(a).cross(edge1);
-        Vector3 c2 = intersection.subtract(b).cross(edge2);
-        Vector3 c3 = intersection.subtract(c).cross(edge3);
-        Vector3 c4 = intersection.subtract(d).cross(edge4);
+    private boolean hasContact(HitBox first, HitBox second) {
+        for (Contact contact : contacts) {
+            if (contact.first() == first && contact.second() == second) return true;
+            if (contact.first() == second && contact.second() == first) return true;
+        }
 
-        boolean inside = (c1.dot(normal) >= 0) && (c2.dot(normal) >= 0) &&
-                (c3.dot(normal) >= 0) && (c4.dot(normal) >= 0);
+        return false;
+    }
 
-        if (inside)
-            return new HitInfo<>(intersection, new Color(Console.TextColor.DEFAULT), t, null);
+    /** Drops removed HitBoxes and adds new ones to the end, so the sort only has to move the new ones */
+    private void updateSweepHitBoxes() {
+        Set<HitBox> previous = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<HitBox> sweep = new ArrayList<>(hitBoxes.size());
 
-        return null;
+        for (HitBox hitBox : sweepHitBoxes) {
+            previous.add(hitBox);
+            if (hitBoxes.contains(hitBox)) sweep.add(hitBox);
+        }
+
+        for (HitBox hitBox : hitBoxes) {
+            // Sprites are only ever drawn, they never collide
+            if (hitBox instanceof SpriteCollider || previous.contains(hitBox)) continue;
+
+            sweep.add(hitBox);
+        }
+
+        sweepHitBoxes = sweep.toArray(new HitBox[0]);
+        sweepMin = new float[sweepHitBoxes.length];
+        sweepMax = new float[sweepHitBoxes.length];
+        sweepDirty = false;
     }
 
-    public void addHitBox(HitBox hitBox) {
-        synchronized (hitBoxes) {
-            hitBoxes.add(hitBox);
+    /** Insertion sort, the order barely changes between ticks so this is close to linear */
+    private void sortSweepHitBoxes() {
+        for (int i = 1; i < sweepHitBoxes.length; i++) {
+            HitBox hitBox = sweepHitBoxes[i];
+            float min = sweepMin[i];
+            float max = sweepMax[i];
+            int j = i - 1;
+
+            while (j >= 0 && sweepMin[j] > min) {
+                sweepHitBoxes[j + 1] = sweepHitBoxes[j];
+                sweepMin[j + 1] = sweepMin[j];
+                sweepMax[j + 1] = sweepMax[j];
+                j--;
+            }
+
+            sweepHitBoxes[j + 1] = hitBox;
+            sweepMin[j + 1] = min;
+            sweepMax[j + 1] = max;
         }
     }
 
-    public void removeHitBox(HitBox hitBox) {
+    /**
+     * Sweeps a sphere from where it is now to a new position, so fast movers can't pass through anything between ticks.
+     * The sphere isn't moved, and only HitBoxes on the layers in the mask are tested.
+     * Everything else is treated as if it stands still during the move.
+     *
+     * @return Returns "HitInfo" for the first HitBox the sphere touches, where the hit position is the sphere's center
+     * at that moment and the distance is the time of impact, 0 at the start of the move and 1 at the end.
+     * Returns "null" if it touches nothing
+     */
+    public HitInfo<HitBox> sweepSphere(SphereCollider sphere, Vector3 to, int layerMask) {
+        Vector3 from = sphere.getPosition();
+        float radius = sphere.getRadius();
+        Set<HitBox> candidates = new LinkedHashSet<>();
+
         synchronized (hitBoxes) {
-            hitBoxes.remove(hitBox);
+            updateSpatialHash();
+            spatialHash.retrieve(
+                    candidates,
+                    Math.min(from.x, to.x) - radius,
+                    Math.min(from.z, to.z) - radius,
+                    Math.max(from.x, to.x) + radius,
+                    Math.max(from.z, to.z) + radius
+            );
         }
+
+        HitBox nearest = null;
+        float nearestTime = Float.MAX_VALUE;
+
+        for (HitBox candidate : candidates) {
+            if (candidate == sphere || !candidate.containsCollisionLayer(layerMask)) continue;
+
+            float time = switch (candidate) {
+                case SphereCollider other -> sweepSphereAgainstSphere(from, to, radius + other.getRadius(), other.getPosition());
+                case BoxCollider box -> sweepSphereAgainstBox(from, to, radius, box);
+                case SpriteCollider _ -> -1;
+            };
+
+            if (time >= 0 && time < nearestTime) {
+                nearestTime = time;
+                nearest = candidate;
+            }
+        }
+
+        if (nearest == null) return null;
+
+        Vector3 hitPosition = from.add(to.subtract(from).scale(nearestTime));
+        return new HitInfo<>(hitPosition, nearest.getColor(), nearestTime, nearest);
+    }
+
+    /** @return Returns the time of impact from 0 to 1, or -1 if the spheres never touch during the move */
+    private float sweepSphereAgainstSphere(Vector3 from, Vector3 to, float radii, Vector3 center) {
+        // The same as a ray against a sphere with both radii, solving |from + t * move - center| = radii for t
+        float moveX = to.x - from.x;
+        float moveY = to.y - from.y;
+        float moveZ = to.z - from.z;
+        float offsetX = from.x - center.x;
+        float offsetY = from.y - center.y;
+        float offsetZ = from.z - center.z;
+
+        float c = offsetX * offsetX + offsetY * offsetY + offsetZ * offsetZ - radii * radii;
+        if (c <= 0) return 0;
+
+        float a = moveX * moveX + moveY * moveY + moveZ * moveZ;
+        float b = moveX * offsetX + moveY * offsetY + moveZ * offsetZ;
+        if (a == 0 || b >= 0) return -1;
+
+        float discriminant = b * b - a * c;
+        if (discriminant < 0) return -1;
+
+        float time = (-b - (float) Math.sqrt(discriminant)) / a;
+        return time <= 1 ? time : -1;
     }
 
     /**
-     * Returns all HitBoxes, ignoring the quadtree
+     * Conservative advancement, the sphere can always move as far as its distance to the box without touching it.
+     *
+     * @return Returns the time of impact from 0 to 1, or -1 if the sphere never touches the box during the move
      */
-    public Set<HitBox> getHitBoxes() {
+    private float sweepSphereAgainstBox(Vector3 from, Vector3 to, float radius, BoxCollider box) {
+        Vector3 center = box.getPosition();
+        float moveX = to.x - from.x;
+        float moveY = to.y - from.y;
+        float moveZ = to.z - from.z;
+        float length = (float) Math.sqrt(moveX * moveX + moveY * moveY + moveZ * moveZ);
+        float time = 0;
+
+        for (int step = 0; step < MAX_SWEEP_STEPS; step++) {
+            float gap = (float) Math.sqrt(squaredDistanceToBox(
+                    box,
+                    from.x + moveX * time - center.x,
+                    from.y + moveY * time - center.y,
+                    from.z + moveZ * time - center.z
+            )) - radius;
+
+            if (gap <= SWEEP_TOLERANCE) return time;
+            if (length == 0) return -1;
+
+            time += gap / length;
+            if (time > 1) return -1;
+        }
+
+        // Only a move that barely grazes the box runs out of steps
+        return -1;
+    }
+
+    /** Called by HitBoxes when they move, they're only rebucketed once something queries the spatial hash */
+    public void hitBoxMoved(HitBox hitBox) {
         synchronized (hitBoxes) {
-            return hitBoxes;
+            if (hitBoxes.contains(hitBox)) movedHitBoxes.add(hitBox);
         }
     }
 
     /**
-     * Returns all relevant HitBoxes by utilizing a Quadtree
+     * Returns all relevant HitBoxes by utilizing a spatial hash
      */
     public Set<HitBox> getHitBoxes(HitBox hitBox) {
         synchronized (hitBoxes) {
-            rebuildQuadtree();
-            List<HitBox> hitBoxesInTree = new ArrayList<>();
-            quadtree.retrieve(hitBoxesInTree, hitBox);
-            return new LinkedHashSet<>(hitBoxesInTree);
+            updateSpatialHash();
+
+            Set<HitBox> nearbyHitBoxes = new LinkedHashSet<>();
+            spatialHash.retrieve(nearbyHitBoxes, hitBox);
+            return nearbyHitBoxes;
         }
     }
 
-    private void rebuildQuadtree() {
-        quadtree.clear();
-        quadtree.insertAll(hitBoxes.toArray(new HitBox[0]));
+    private void updateSpatialHash() {
+        for (HitBox moved : movedHitBoxes)
+            spatialHash.update(moved);
+
+        movedHitBoxes.clear();
     }
+
+    /** Two HitBoxes that touched during the last pass */
+    private record Contact(HitBox first, HitBox second) {}
 }
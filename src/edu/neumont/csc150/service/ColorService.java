@@ -1,8 +1,11 @@
 package edu.neumont.csc150.service;
 
 import edu.neumont.csc150.model.misc.Color;
+import edu.neumont.csc150.model.misc.Texture;
 import edu.neumont.csc150.view.Console;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -12,7 +15,7 @@ public class ColorService implements Injectable {
      * supports RGB color codes, such as "`e[38;2;255;255;255m" */
     public static final boolean FULL_ANSI_COLOR_SUPPORT = true;
 
-    private final Map<String, Image> loadedImages = new LinkedHashMap<>();
+    private final Map<String, Texture> loadedImages = new LinkedHashMap<>();
     private Map<Short, Console.TextColor> toColorMap;
     private Map<Console.TextColor, Short> toCharacterMap;
     private Map<Integer, Console.TextColor> fromColorCodeMap;
@@ -87,6 +90,29 @@ public class ColorService implements Injectable {
         return colorCode + character;
     }
 
+    /** For a color that's already packed like a character in the frame, such as a texture's, so nothing is allocated */
+    public long getColoredBrightness(long color, byte brightness) {
+        brightness %= (byte) LIGHT_VALUES.length();
+        return color + LIGHT_VALUES.charAt(brightness);
+    }
+
+    /** @return Returns the color packed like a character in the frame, without the character */
+    public long getPackedColor(Color color) {
+        if (FULL_ANSI_COLOR_SUPPORT)
+            return color.toLong();
+
+        if (toCharacterMap == null) return 0;
+
+        return toCharacterMap.get(color.getConsoleColor());
+    }
+
+    /** False for Texture.TRANSPARENT, and for colors the console could only show as its default one */
+    public boolean canDraw(long color) {
+        if (color == Texture.TRANSPARENT) return false;
+
+        return FULL_ANSI_COLOR_SUPPORT || (color & 0xF000) != 0;
+    }
+
     public long getColoredCharacter(Color color, char character) {
         if (FULL_ANSI_COLOR_SUPPORT)
             return color.toLong() + character;
@@ -136,31 +162,86 @@ public class ColorService implements Injectable {
         return character & 0xFFFFFF0000L;
     }
 
-    public synchronized Image loadImage(String url) {
+    /** Decodes the image the first time it's loaded, returns null if it couldn't be read */
+    public synchronized Texture loadImage(String url) {
         if (loadedImages.containsKey(url))
             return loadedImages.get(url);
 
-        Image image = new Image(url);
-        loadedImages.put(url, image);
-        return image;
+        Texture texture = decodeImage(new Image(url));
+        loadedImages.put(url, texture);
+        return texture;
+    }
+
+    private Texture decodeImage(Image image) {
+        PixelReader pixelReader = image.getPixelReader();
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        if (pixelReader == null || width == 0 || height == 0) return null;
+
+        int[] pixels = new int[width * height];
+        pixelReader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        return createTexture(width, height, pixels);
     }
 
-    /** This can be used when the console does not support full advanced, ansi color-codes */
-    public synchronized Color getColorAtPoint(Image image, int x, int y) {
-        x = Math.min(Math.max(x, 0), (int)image.getWidth() - 1);
-        y = Math.min(Math.max(y, 0), (int)image.getHeight() - 1);
+    /** Makes the texture along with every mip level below it, each one half the size of the one before */
+    private Texture createTexture(int width, int height, int[] pixels) {
+        Texture smaller = width > 1 || height > 1 ? createMipLevel(width, height, pixels) : null;
 
-        int imageColor = image.getPixelReader().getArgb(x, (int)image.getHeight() - 1 - y);
-        int alpha = (imageColor >> 24) & 0xFF;
-        int red = (imageColor >> 16) & 0xFF;
-        int green = (imageColor >> 8) & 0xFF;
-        int blue = imageColor & 0xFF;
+        long[] colors = new long[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int alpha = (pixels[i] >> 24) & 0xFF;
+            int red = (pixels[i] >> 16) & 0xFF;
+            int green = (pixels[i] >> 8) & 0xFF;
+            int blue = pixels[i] & 0xFF;
 
-        if (alpha < 255) return null;
+            if (alpha < 255) colors[i] = Texture.TRANSPARENT;
+            else if (FULL_ANSI_COLOR_SUPPORT) colors[i] = new Color(red, green, blue).toLong();
+            else colors[i] = toCharacterMap.get(getClosestConsoleColor(red, green, blue));
+        }
 
-        if (FULL_ANSI_COLOR_SUPPORT)
-            return new Color(red, green, blue);
+        return new Texture(width, height, pixels, colors, smaller);
+    }
+
+    /**
+     * Averages every 2 by 2 block of pixels into one. A block with fewer than 2 opaque pixels
+     * becomes transparent, otherwise only the opaque ones are averaged
+     */
+    private Texture createMipLevel(int width, int height, int[] pixels) {
+        int mipWidth = Math.max(1, width / 2);
+        int mipHeight = Math.max(1, height / 2);
+        int[] mipPixels = new int[mipWidth * mipHeight];
+
+        for (int y = 0; y < mipHeight; y++) {
+            for (int x = 0; x < mipWidth; x++) {
+                int opaque = 0;
+                int red = 0;
+                int green = 0;
+                int blue = 0;
+
+                for (int corner = 0; corner < 4; corner++) {
+                    int pixelX = Math.min(x * 2 + (corner & 1), width - 1);
+                    int pixelY = Math.min(y * 2 + (corner >> 1), height - 1);
+                    int pixel = pixels[pixelY * width + pixelX];
+                    if ((pixel >>> 24) < 255) continue;
+
+                    opaque++;
+                    red += (pixel >> 16) & 0xFF;
+                    green += (pixel >> 8) & 0xFF;
+                    blue += pixel & 0xFF;
+                }
+
+                if (opaque < 2) continue;
+
+                mipPixels[y * mipWidth + x] = 0xFF000000 | red / opaque << 16 | green / opaque << 8 | blue / opaque;
+            }
+        }
+
+        return createTexture(mipWidth, mipHeight, mipPixels);
+    }
 
+    /** Used when the console does not support full advanced, ansi color-codes */
+    private Console.TextColor getClosestConsoleColor(int red, int green, int blue) {
         int closestColor = 0x00CCCCCC;
         int closestDistance = Integer.MAX_VALUE;
         for (int colorCode : CONSOLE_COLORS_CODES) {
@@ -173,7 +254,7 @@ public class ColorService implements Injectable {
             int imageDistance = rDis * rDis + gDis * gDis + bDis * bDis;
 
             if (imageDistance == 0)
-                return new Color(fromColorCodeMap.get(colorCode));
+                return fromColorCodeMap.get(colorCode);
 
             if (imageDistance < closestDistance) {
                 closestDistance = imageDistance;
@@ -181,7 +262,7 @@ public class ColorService implements Injectable {
             }
         }
 
-        return new Color(fromColorCodeMap.get(closestColor));
+        return fromColorCodeMap.get(closestColor);
     }
 
     public String getANSIColorString(long color) {
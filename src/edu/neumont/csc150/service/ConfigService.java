@@ -6,7 +6,42 @@ public class ConfigService implements Injectable {
     public final int screenHeight;
     public final float brightness;
     public final float fixedDeltaTime;
-    public final byte sceneWorkerThreadCount;
+    public final int sceneWorkerThreadCount;
+    public final int renderTileWidth;
+    public final int renderTileHeight;
+    /** Only write the cells that changed since the last frame */
+    public final boolean deltaFrameOutput;
+    /** Every this many frames the whole frame is written anyway, painting over anything else written to the terminal */
+    public final int fullFrameInterval;
+    /** Use "`e[{n}b" to repeat characters, only where the terminal's terminfo says it supports it */
+    public final boolean repeatCharacterEscapes;
+    /** Render the levels column by column instead of tracing every cell */
+    public final boolean columnRendering;
+    /** Rasterize every scene's quads instead of tracing rays, this overrides columnRendering */
+    public final boolean rasterRendering;
+    /** Trace at a lower resolution when frames run over budget, and upscale into the frame */
+    public final boolean adaptiveResolution;
+    /** Trace the center of the screen at full resolution, and each ring of foveaRings around it coarser */
+    public final boolean foveatedRendering;
+    /**
+     * Where each ring around the center of the screen starts, as a fraction of the way to the screen's edge.
+     * Every ring is traced at half the resolution of the one inside it
+     */
+    public final float[] foveaRings;
+    /** Trace half the cells each frame in a checkerboard, and fill the rest from their neighbours where they agree */
+    public final boolean checkerboardRendering;
+    /** While the camera stands still, only retrace the cells that colliders moved into or out of */
+    public final boolean temporalReuse;
+    /** Sort the colliders into the render tiles they cover once per frame, so each ray only tests its own tile's */
+    public final boolean tileBinning;
+    /** Draw sprites over the traced frame after it's traced, instead of testing every ray against them */
+    public final boolean spriteRasterization;
+    /** Don't trace the cells the hands and health bar cover with opaque pixels */
+    public final boolean overlayCulling;
+    /** Size of the spatial hash's cells that colliders are bucketed into, in world units */
+    public final float broadphaseCellSize;
+    /** Size of the cells a level's potentially visible set is worked out for, in world units */
+    public final float visibilityCellSize;
     private static float deltaTime;
     private long previousFrameMs = System.currentTimeMillis();
 
@@ -16,7 +51,24 @@ public class ConfigService implements Injectable {
         screenHeight = 40;
         brightness = 1.35f;
         fixedDeltaTime = 1.0f / framesPerSecond;
-        sceneWorkerThreadCount = 16;
+        sceneWorkerThreadCount = Runtime.getRuntime().availableProcessors();
+        renderTileWidth = 16;
+        renderTileHeight = 8;
+        deltaFrameOutput = true;
+        fullFrameInterval = framesPerSecond * 2;
+        repeatCharacterEscapes = true;
+        columnRendering = true;
+        rasterRendering = false;
+        adaptiveResolution = true;
+        foveatedRendering = false;
+        foveaRings = new float[] { 0.45f, 0.8f };
+        checkerboardRendering = false;
+        temporalReuse = true;
+        tileBinning = true;
+        spriteRasterization = true;
+        overlayCulling = true;
+        broadphaseCellSize = 4;
+        visibilityCellSize = 2;
         deltaTime = fixedDeltaTime;
     }
 
@@ -0,0 +1,73 @@
+package edu.neumont.csc150.view;
+
+import edu.neumont.csc150.service.ConfigService;
+import edu.neumont.csc150.service.Injectable;
+
+import java.util.Arrays;
+
+/**
+ * Picks how much coarser than the rest of the frame each part of the screen is traced.
+ * <br>
+ * The player aims at the center of the screen, so that is traced at full resolution.
+ * Each ring further out is traced at half the resolution of the one inside it,
+ * and its cells are copied over the rest of their block.
+ */
+public class Foveation {
+    private final ConfigService configService;
+    private final float centerRow;
+    private final float centerColumn;
+
+    public Foveation(Injectable config, int screenWidth, int screenHeight) {
+        configService = (ConfigService) config;
+        centerRow = screenHeight / 2f;
+        centerColumn = screenWidth / 2f;
+    }
+
+    /**
+     * @param x The row, it can be between cells
+     * @param y The column, it can be between cells
+     * @return Returns how many times coarser the cell is traced, 1 inside the first ring
+     */
+    public int getStep(float x, float y) {
+        if (!configService.foveatedRendering) return 1;
+
+        // Stretched so the screen's edges are 1 away from the center
+        float row = (x - centerRow) / centerRow;
+        float column = (y - centerColumn) / centerColumn;
+        float distance = (float) Math.sqrt(row * row + column * column);
+
+        int step = 1;
+        for (float ring : configService.foveaRings) {
+            if (distance < ring) break;
+            step *= 2;
+        }
+
+        return step;
+    }
+
+    /**
+     * Splits the screen into the columns traced in column mode. Every row is traced there,
+     * so only how far the column is from the center matters
+     *
+     * @return Returns the first column of each traced column, followed by the screen's width
+     */
+    public int[] layoutColumns(int columnStep, int screenWidth) {
+        int[] starts = new int[screenWidth + 1];
+        int count = 0;
+
+        for (int y = 0; y < screenWidth; ) {
+            starts[count++] = y;
+            int step = getStep(centerRow, y + 0.5f);
+            int end = Math.min(y + columnStep * step, screenWidth);
+
+            // A coarse column stops where a finer ring starts
+            while (end - y > columnStep && getStep(centerRow, end - 0.5f) < step)
+                end--;
+
+            y = end;
+        }
+
+        starts[count++] = screenWidth;
+        return Arrays.copyOf(starts, count);
+    }
+}
@@ -0,0 +1,155 @@
+package edu.neumont.csc150.view;
+
+import edu.neumont.csc150.service.ColorService;
+import edu.neumont.csc150.service.Injectable;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes frames straight into bytes and writes them to stdout.
+ * <br>
+ * The buffer and every escape fragment are made once, so encoding a frame
+ * doesn't create any garbage for the GC to pause on.
+ */
+public class FrameEncoder {
+    /** ASCII digits for 0 through 255, the range of every color component */
+    private static final byte[][] NUMBERS = new byte[256][];
+    private static final byte[] TRUE_COLOR_START = "\u001B[38;2;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CURSOR_HOME = "\u001B[H".getBytes(StandardCharsets.US_ASCII);
+    private static final byte ESCAPE = 0x1B;
+
+    static {
+        for (int i = 0; i < NUMBERS.length; i++)
+            NUMBERS[i] = Integer.toString(i).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final ColorService colorService;
+    private final FileChannel output = new FileOutputStream(FileDescriptor.out).getChannel();
+    /** Raw color codes indexed by the console color bits of a character, (character >> 12) & 0xF */
+    private final byte[][] rawColorCodes = new byte[16][];
+    private ByteBuffer buffer;
+    private long previousColor = -1;
+
+    public FrameEncoder(Injectable color, int screenWidth, int screenHeight) {
+        colorService = (ColorService) color;
+        buffer = ByteBuffer.allocateDirect(maxFrameSize(screenWidth, screenHeight));
+
+        if (ColorService.FULL_ANSI_COLOR_SUPPORT) return;
+
+        for (int code = 0; code < rawColorCodes.length; code++) {
+            String rawCode = colorService.getRawColorCode(colorService.getColor((long) code << 12).getConsoleColor());
+            rawColorCodes[code] = rawCode.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /** The worst case is a color change and a 3 byte character on every cell */
+    private int maxFrameSize(int screenWidth, int screenHeight) {
+        return screenWidth * screenHeight * 24 + screenHeight * 16 + 64;
+    }
+
+    /** Starts a new frame, making sure the buffer can hold a full frame at this size */
+    public void beginFrame(int screenWidth, int screenHeight) {
+        int capacity = maxFrameSize(screenWidth, screenHeight);
+        if (buffer.capacity() < capacity)
+            buffer = ByteBuffer.allocateDirect(capacity);
+
+        buffer.clear();
+        previousColor = -1;
+    }
+
+    public boolean isEmpty() {
+        return buffer.position() == 0;
+    }
+
+    public void cursorHome() {
+        buffer.put(CURSOR_HOME);
+    }
+
+    /** Row and column start at 0 */
+    public void cursorPosition(int row, int column) {
+        buffer.put(ESCAPE).put((byte) '[');
+        putNumber(row + 1);
+        buffer.put((byte) ';');
+        putNumber(column + 1);
+        buffer.put((byte) 'H');
+    }
+
+    /** Repeats the last character, "`e[{n}b" */
+    public void repeat(int times) {
+        buffer.put(ESCAPE).put((byte) '[');
+        putNumber(times);
+        buffer.put((byte) 'b');
+    }
+
+    public void newline() {
+        buffer.put((byte) '\n');
+    }
+
+    /** Writes the color of a character if it's different from the last one written */
+    public void color(long character) {
+        if (ColorService.FULL_ANSI_COLOR_SUPPORT) {
+            long color = colorService.getANSIColor(character);
+            if (previousColor == color) return;
+
+            buffer.put(TRUE_COLOR_START);
+            buffer.put(NUMBERS[(int) (color >> 32) & 0xFF]).put((byte) ';');
+            buffer.put(NUMBERS[(int) (color >> 24) & 0xFF]).put((byte) ';');
+            buffer.put(NUMBERS[(int) (color >> 16) & 0xFF]).put((byte) 'm');
+            previousColor = color;
+        } else {
+            int code = (int) (character >> 12) & 0xF;
+            if (previousColor == code) return;
+
+            buffer.put(rawColorCodes[code]);
+            previousColor = code;
+        }
+    }
+
+    /** Writes the character as UTF-8 */
+    public void character(char character) {
+        if (character < 0x80) {
+            buffer.put((byte) character);
+        } else if (character < 0x800) {
+            buffer.put((byte) (0xC0 | character >> 6));
+            buffer.put((byte) (0x80 | character & 0x3F));
+        } else {
+            buffer.put((byte) (0xE0 | character >> 12));
+            buffer.put((byte) (0x80 | character >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | character & 0x3F));
+        }
+    }
+
+    /** Writes everything encoded since beginFrame, nothing is written for an empty frame */
+    public void flush() {
+        if (isEmpty()) return;
+
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                output.write(buffer);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        buffer.clear();
+    }
+
+    private void putNumber(int number) {
+        if (number < NUMBERS.length) {
+            buffer.put(NUMBERS[number]);
+            return;
+        }
+
+        int divisor = 1;
+        while (number / divisor >= 10)
+            divisor *= 10;
+
+        for (; divisor > 0; divisor /= 10)
+            buffer.put((byte) ('0' + number / divisor % 10));
+    }
+}
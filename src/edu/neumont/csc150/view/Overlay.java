@@ -1,14 +1,21 @@
 package edu.neumont.csc150.view;
 
 import edu.neumont.csc150.model.misc.Color;
+import edu.neumont.csc150.model.misc.Texture;
 import edu.neumont.csc150.service.ConfigService;
 import edu.neumont.csc150.service.Injectable;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
 
 import java.awt.image.BufferedImage;
 
 public class Overlay extends UITask {
+    // Where the player's health bar and hands go, shared by drawing and covering so they can't drift apart
+    private final float HEALTH_START = 0.25f;
+    private final float HEALTH_END = 0.75f;
+    private final float HANDS_X = 0.5f;
+    private final float HANDS_Y = 0.5f;
+    private final int HANDS_WIDTH = 2;
+    private final int HANDS_HEIGHT = 1;
+
     private final ConfigService configService;
     private final String logo = "\n" +
             "\n" +
@@ -68,6 +75,12 @@ public class Overlay extends UITask {
         }
     }
 
+    /** The health bar and hands drawn over every level */
+    public void drawPlayerHud(float remainingHealth, String handImage) {
+        drawHealth(HEALTH_START, HEALTH_END, remainingHealth);
+        displayImage(HANDS_X, HANDS_Y, HANDS_WIDTH, HANDS_HEIGHT, handImage);
+    }
+
     public void drawHealth(float percentStart, float percentEnd, float remainingHealth) {
         int startHealthBar = (int) ((configService.screenWidth - 1) * percentStart);
         int endHealthBar = (int) ((configService.screenWidth - 1) * percentEnd);
@@ -97,19 +110,18 @@ public class Overlay extends UITask {
     public void displayImage(float x, float y, int width, int height, String url) {
         if (url == null) return;
 
-        Image image = colorService.loadImage(url);
+        Texture image = colorService.loadImage(url);
         if (image == null) return;
 
         for (int pixelX = 0; pixelX < image.getWidth() * width; pixelX++) {
             for (int pixelY = 0; pixelY < image.getHeight() * height; pixelY++) {
-                PixelReader pixelReader = image.getPixelReader();
-                int alpha = (pixelReader.getArgb(pixelX / width, pixelY / height) >> 24) & 0xFF;
+                int color = image.getArgb(pixelX / width, pixelY / height);
+                int alpha = (color >> 24) & 0xFF;
                 if (alpha < 255) continue;
 
-                int coordX = (int) (configService.screenWidth * x) + pixelX - (int)image.getWidth() * width / 2;
-                int coordY = (int) (configService.screenHeight * y) + pixelY - (int)image.getHeight() * height / 2;
+                int coordX = (int) (configService.screenWidth * x) + pixelX - image.getWidth() * width / 2;
+                int coordY = (int) (configService.screenHeight * y) + pixelY - image.getHeight() * height / 2;
 
-                int color = pixelReader.getArgb(pixelX / width, pixelY / height);
                 long character = colorService.getColoredCharacter(new Color(color), '∎');
 
                 try {
@@ -119,6 +131,45 @@ public class Overlay extends UITask {
         }
     }
 
+    /** Marks the cells drawPlayerHud draws an opaque cell over with the same hands */
+    public void coverPlayerHud(boolean[][] coverage, String handImage) {
+        coverHealth(coverage, HEALTH_START, HEALTH_END);
+        coverImage(coverage, HANDS_X, HANDS_Y, HANDS_WIDTH, HANDS_HEIGHT, handImage);
+    }
+
+    /** Marks the cells drawHealth draws over with the same arguments, every one of them is opaque */
+    private void coverHealth(boolean[][] coverage, float percentStart, float percentEnd) {
+        int startHealthBar = (int) ((configService.screenWidth - 1) * percentStart);
+        int endHealthBar = (int) ((configService.screenWidth - 1) * percentEnd);
+
+        for (int x = Math.max(startHealthBar - 1, 0); x <= Math.min(endHealthBar + 1, configService.screenWidth - 1); x++) {
+            coverage[configService.screenHeight - 2][x] = true;
+            coverage[configService.screenHeight - 1][x] = true;
+        }
+    }
+
+    /** Marks the cells displayImage draws an opaque pixel over with the same arguments */
+    private void coverImage(boolean[][] coverage, float x, float y, int width, int height, String url) {
+        if (url == null) return;
+
+        Texture image = colorService.loadImage(url);
+        if (image == null) return;
+
+        for (int pixelX = 0; pixelX < image.getWidth() * width; pixelX++) {
+            for (int pixelY = 0; pixelY < image.getHeight() * height; pixelY++) {
+                int alpha = (image.getArgb(pixelX / width, pixelY / height) >> 24) & 0xFF;
+                if (alpha < 255) continue;
+
+                int coordX = (int) (configService.screenWidth * x) + pixelX - image.getWidth() * width / 2;
+                int coordY = (int) (configService.screenHeight * y) + pixelY - image.getHeight() * height / 2;
+                if (coordX < 0 || coordX >= configService.screenWidth || coordY < 0 || coordY >= configService.screenHeight)
+                    continue;
+
+                coverage[coordY][coordX] = true;
+            }
+        }
+    }
+
     /** x and y are in pixels, (0,0) being the top left and (max, max) being bottom right */
     public void displayText(int x, int y, String text) {
         if (text == null) return;
@@ -0,0 +1,297 @@
+package edu.neumont.csc150.view;
+
+import edu.neumont.csc150.model.colliders.*;
+import edu.neumont.csc150.model.misc.Texture;
+import edu.neumont.csc150.model.misc.Vector3;
+import edu.neumont.csc150.model.misc.raycast.ColliderGeometry;
+import edu.neumont.csc150.model.misc.raycast.SceneSnapshot;
+import edu.neumont.csc150.service.ColorService;
+import edu.neumont.csc150.service.ConfigService;
+import edu.neumont.csc150.service.Injectable;
+
+import java.util.Arrays;
+
+/**
+ * Draws a frame by scan converting every visible quad instead of tracing a ray for every cell.
+ * <br>
+ * Once per frame every quad is moved into the camera's view space, clipped to the near plane and
+ * projected onto the screen. Each tile then fills the rows of every projection that cross it,
+ * and a cell only keeps the nearest quad drawn to it. The cost depends on how much is on the screen,
+ * not on how many cells there are times how many colliders. Spheres are small, so they're still tested per cell.
+ */
+public class QuadRasterizer {
+    /** Anything closer than this to the camera along its forward direction is clipped */
+    private final float NEAR_PLANE = 1e-3f;
+    /** A quad clipped by one plane has at most 5 corners */
+    private final int MAX_CORNERS = 5;
+
+    private final ColorService colorService;
+    private final ConfigService configService;
+    /** Each quad's corners on the screen as column offset, row offset. Quads that aren't drawn have no corners */
+    private float[] projectedCorners = new float[0];
+    private int[] cornerCounts = new int[0];
+
+    public QuadRasterizer(Injectable color, Injectable config) {
+        colorService = (ColorService) color;
+        configService = (ConfigService) config;
+    }
+
+    /** Projects the quads of every candidate, this must happen before any tile of the frame is drawn */
+    public void prepare(SceneSnapshot frame) {
+        ColliderGeometry geometry = frame.getGeometry();
+        int quads = geometry.getQuadTotal();
+        if (cornerCounts.length < quads) {
+            projectedCorners = new float[quads * MAX_CORNERS * 2];
+            cornerCounts = new int[quads];
+        }
+
+        Arrays.fill(cornerCounts, 0);
+        boolean[] backFacing = frame.getBackFacingQuads();
+        float[] corner = new float[3];
+        float[] view = new float[4 * 3];
+
+        for (int collider : frame.getCandidates()) {
+            int start = geometry.getQuadStart(collider);
+
+            for (int quad = start; quad < start + geometry.getQuadCount(collider); quad++) {
+                if (backFacing[quad]) continue;
+
+                for (int i = 0; i < 4; i++) {
+                    frame.toViewSpace(
+                            geometry.getCorner(quad, i, 0),
+                            geometry.getCorner(quad, i, 1),
+                            geometry.getCorner(quad, i, 2),
+                            corner
+                    );
+                    System.arraycopy(corner, 0, view, i * 3, 3);
+                }
+
+                project(quad, view);
+            }
+        }
+    }
+
+    /** Clips the quad to the near plane, then divides every corner by how far forward it is */
+    private void project(int quad, float[] view) {
+        int offset = quad * MAX_CORNERS * 2;
+        int count = 0;
+
+        for (int corner = 0; corner < 4; corner++) {
+            int next = (corner + 1) % 4;
+            float forward = view[corner * 3];
+            float nextForward = view[next * 3];
+
+            if (forward >= NEAR_PLANE) {
+                projectedCorners[offset + count * 2] = view[corner * 3 + 1] / forward;
+                projectedCorners[offset + count * 2 + 1] = view[corner * 3 + 2] / forward;
+                count++;
+            }
+
+            // Where the edge crosses the near plane becomes a new corner
+            if ((forward >= NEAR_PLANE) != (nextForward >= NEAR_PLANE)) {
+                float lerp = (NEAR_PLANE - forward) / (nextForward - forward);
+                float sideways = view[corner * 3 + 1] + (view[next * 3 + 1] - view[corner * 3 + 1]) * lerp;
+                float up = view[corner * 3 + 2] + (view[next * 3 + 2] - view[corner * 3 + 2]) * lerp;
+
+                projectedCorners[offset + count * 2] = sideways / NEAR_PLANE;
+                projectedCorners[offset + count * 2 + 1] = up / NEAR_PLANE;
+                count++;
+            }
+        }
+
+        cornerCounts[quad] = count >= 3 ? count : 0;
+    }
+
+    /**
+     * Draws everything seen in the cells from (startRow, startColumn) up to, but not including, (endRow, endColumn).
+     * Every cell is cleared first, the ids of the cells nothing was drawn in are -1
+     */
+    public void drawTile(
+            SceneSnapshot frame,
+            int startRow,
+            int startColumn,
+            int endRow,
+            int endColumn,
+            long[][] cells,
+            int[][] ids,
+            float[][] depths
+    ) {
+        for (int x = startRow; x < endRow; x++) {
+            Arrays.fill(ids[x], startColumn, endColumn, -1);
+            Arrays.fill(depths[x], startColumn, endColumn, Float.MAX_VALUE);
+        }
+
+        int[] colliders = frame.getTileCandidates(startRow, startColumn);
+        if (colliders == null) colliders = frame.getCandidates();
+
+        ColliderGeometry geometry = frame.getGeometry();
+        Tile tile = new Tile(frame, startRow, startColumn, endRow, endColumn, cells, ids, depths);
+
+        for (int collider : colliders) {
+            if (frame.getHitBox(collider) instanceof SphereCollider) {
+                drawSphere(tile, collider);
+                continue;
+            }
+
+            int start = geometry.getQuadStart(collider);
+            for (int quad = start; quad < start + geometry.getQuadCount(collider); quad++) {
+                if (cornerCounts[quad] > 0) drawQuad(tile, collider, quad);
+            }
+        }
+    }
+
+    /** Everything a tile's cells are drawn with */
+    private record Tile(
+            SceneSnapshot frame,
+            int startRow,
+            int startColumn,
+            int endRow,
+            int endColumn,
+            long[][] cells,
+            int[][] ids,
+            float[][] depths
+    ) {}
+
+    private void drawQuad(Tile tile, int collider, int quad) {
+        SceneSnapshot frame = tile.frame();
+        ColliderGeometry geometry = frame.getGeometry();
+        Vector3 origin = frame.getCameraPosition();
+        int offset = quad * MAX_CORNERS * 2;
+        int count = cornerCounts[quad];
+
+        float top = -Float.MAX_VALUE;
+        float bottom = Float.MAX_VALUE;
+        for (int corner = 0; corner < count; corner++) {
+            top = Math.max(top, projectedCorners[offset + corner * 2 + 1]);
+            bottom = Math.min(bottom, projectedCorners[offset + corner * 2 + 1]);
+        }
+
+        // Every ray starts this far in front of the quad's plane, and moves towards it at its own rate
+        float originDistance = geometry.planeDistance(quad, origin.x, origin.y, origin.z);
+
+        for (int x = tile.startRow(); x < tile.endRow(); x++) {
+            float row = frame.getRowOffset(x);
+            if (row > top || row < bottom) continue;
+
+            // The projection is convex, so the row crosses it in one span
+            float left = Float.MAX_VALUE;
+            float right = -Float.MAX_VALUE;
+            for (int corner = 0; corner < count; corner++) {
+                int next = (corner + 1) % count;
+                float column = projectedCorners[offset + corner * 2];
+                float cornerRow = projectedCorners[offset + corner * 2 + 1];
+                float nextColumn = projectedCorners[offset + next * 2];
+                float nextRow = projectedCorners[offset + next * 2 + 1];
+
+                if ((row < cornerRow && row < nextRow) || (row > cornerRow && row > nextRow)) continue;
+
+                // An edge lying along the row covers all of itself
+                if (cornerRow == nextRow) {
+                    left = Math.min(left, Math.min(column, nextColumn));
+                    right = Math.max(right, Math.max(column, nextColumn));
+                    continue;
+                }
+
+                float crossing = column + (nextColumn - column) * (row - cornerRow) / (nextRow - cornerRow);
+                left = Math.min(left, crossing);
+                right = Math.max(right, crossing);
+            }
+
+            for (int y = firstColumn(frame, left, tile.startColumn(), tile.endColumn()); y < tile.endColumn(); y++) {
+                if (frame.getColumnOffset(y) > right) break;
+
+                float approach = geometry.planeDistance(
+                        quad,
+                        origin.x + frame.getRayDirection(x, y, 0),
+                        origin.y + frame.getRayDirection(x, y, 1),
+                        origin.z + frame.getRayDirection(x, y, 2)
+                ) - originDistance;
+                if (Math.abs(approach) < 1e-6) continue;
+
+                float distance = -originDistance / approach;
+                if (distance < 0 || distance > frame.getRayDistance() || distance >= tile.depths()[x][y]) continue;
+
+                long color = quadColor(frame, collider, x, y, distance);
+                if (color == Texture.TRANSPARENT) continue;
+
+                drawCell(tile, x, y, collider, color, distance);
+            }
+        }
+    }
+
+    /**
+     * The collider's color, or for sprites the image's color where the ray meets it.
+     * Packed like a character in the frame, Texture.TRANSPARENT where it's transparent
+     */
+    private long quadColor(SceneSnapshot frame, int collider, int x, int y, float distance) {
+        if (!(frame.getHitBox(collider) instanceof SpriteCollider sprite))
+            return colorService.getPackedColor(frame.getColor(collider));
+
+        Texture image = frame.getImage(collider);
+        if (image == null) return Texture.TRANSPARENT;
+
+        ColliderGeometry geometry = frame.getGeometry();
+        Vector3 origin = frame.getCameraPosition();
+
+        // Where the ray meets the sprite, relative to its center and stretched to -1 to 1
+        float offsetX = origin.x + frame.getRayDirection(x, y, 0) * distance - geometry.getCenter(collider, 0);
+        float offsetY = origin.y + frame.getRayDirection(x, y, 1) * distance - geometry.getCenter(collider, 1);
+        float offsetZ = origin.z + frame.getRayDirection(x, y, 2) * distance - geometry.getCenter(collider, 2);
+        float u = (offsetX * geometry.getRight(collider, 0) + offsetY * geometry.getRight(collider, 1) +
+                offsetZ * geometry.getRight(collider, 2)) * 2 / geometry.getScale(collider, 0);
+        float v = offsetY * 2 / geometry.getScale(collider, 1);
+
+        return sprite.sample(image, u, v);
+    }
+
+    private void drawSphere(Tile tile, int collider) {
+        SceneSnapshot frame = tile.frame();
+        float[] bounds = new float[6];
+        int[] range = new int[4];
+        frame.getBounds(collider, bounds);
+        if (!frame.getScreenRange(bounds, range)) return;
+
+        Vector3 origin = frame.getCameraPosition();
+        long color = colorService.getPackedColor(frame.getColor(collider));
+
+        for (int x = Math.max(range[0], tile.startRow()); x <= Math.min(range[2], tile.endRow() - 1); x++) {
+            for (int y = Math.max(range[1], tile.startColumn()); y <= Math.min(range[3], tile.endColumn() - 1); y++) {
+                float maxDistance = Math.min(frame.getRayDistance(), tile.depths()[x][y]);
+                float distance = frame.getGeometry().intersectSphere(
+                        collider,
+                        origin.x,
+                        origin.y,
+                        origin.z,
+                        frame.getRayDirection(x, y, 0),
+                        frame.getRayDirection(x, y, 1),
+                        frame.getRayDirection(x, y, 2),
+                        maxDistance
+                );
+
+                if (distance >= 0 && distance < tile.depths()[x][y])
+                    drawCell(tile, x, y, collider, color, distance);
+            }
+        }
+    }
+
+    private void drawCell(Tile tile, int x, int y, int collider, long color, float distance) {
+        byte brightness = colorService.getBrightnessFromDistance(distance, configService.brightness);
+        tile.cells()[x][y] = colorService.getColoredBrightness(color, brightness);
+        tile.ids()[x][y] = collider;
+        tile.depths()[x][y] = distance;
+    }
+
+    /** The first column from start up to end whose rays point at least this far sideways, or end if there is none */
+    private int firstColumn(SceneSnapshot frame, float offset, int start, int end) {
+        int low = start;
+        int high = end;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (frame.getColumnOffset(middle) < offset) low = middle + 1;
+            else high = middle;
+        }
+
+        return low;
+    }
+}
@@ -0,0 +1,82 @@
+package edu.neumont.csc150.view;
+
+import edu.neumont.csc150.service.ConfigService;
+import edu.neumont.csc150.service.Injectable;
+
+/**
+ * Picks how coarse the scene is traced, based on how long the last frames took to trace and encode.
+ * <br>
+ * Frames that keep running over budget drop to a lower resolution quickly, but it takes a second
+ * of frames with plenty of headroom before going back up, so it doesn't flicker between the two.
+ */
+public class ResolutionGovernor {
+    /** How many columns and rows each traced cell covers, the first level is full resolution */
+    private final int[][] LEVELS = { { 1, 1 }, { 2, 1 }, { 2, 2 }, { 4, 2 } };
+    /** How much of the latest frame goes into the average */
+    private final float SMOOTHING = 0.2f;
+    /** Lower the resolution once the average frame uses this much of the budget */
+    private final float LOWER_THRESHOLD = 0.9f;
+    /** Raise the resolution once the next level up is expected to use less than this much of the budget */
+    private final float RAISE_THRESHOLD = 0.7f;
+    private final int LOWER_AFTER_FRAMES = 3;
+    private final int RAISE_AFTER_FRAMES;
+
+    private final ConfigService configService;
+    /** In nanoseconds */
+    private final long frameBudget;
+    private int level;
+    /** In nanoseconds */
+    private float averageFrameTime;
+    private int framesOver;
+    private int framesUnder;
+
+    public ResolutionGovernor(Injectable config) {
+        configService = (ConfigService) config;
+        frameBudget = 1_000_000_000L / configService.framesPerSecond;
+        RAISE_AFTER_FRAMES = configService.framesPerSecond;
+    }
+
+    /** Call once per frame with how long it took to trace and encode, in nanoseconds */
+    public void frameFinished(long frameTime) {
+        if (!configService.adaptiveResolution) {
+            level = 0;
+            return;
+        }
+
+        averageFrameTime = averageFrameTime == 0
+                ? frameTime
+                : averageFrameTime + SMOOTHING * (frameTime - averageFrameTime);
+
+        if (averageFrameTime > frameBudget * LOWER_THRESHOLD && level < LEVELS.length - 1) {
+            framesUnder = 0;
+            if (++framesOver >= LOWER_AFTER_FRAMES) changeLevel(level + 1);
+            return;
+        }
+
+        framesOver = 0;
+        if (level > 0 && averageFrameTime * cellRatio(level, level - 1) < frameBudget * RAISE_THRESHOLD) {
+            if (++framesUnder >= RAISE_AFTER_FRAMES) changeLevel(level - 1);
+        } else framesUnder = 0;
+    }
+
+    public int getColumnStep() {
+        return LEVELS[level][0];
+    }
+
+    public int getRowStep() {
+        return LEVELS[level][1];
+    }
+
+    private void changeLevel(int newLevel) {
+        // Guess what the new level will cost until there are real frames to average
+        averageFrameTime *= cellRatio(level, newLevel);
+        level = newLevel;
+        framesOver = 0;
+        framesUnder = 0;
+    }
+
+    /** How many times more cells are traced at one level compared to another */
+    private float cellRatio(int from, int to) {
+        return (float) (LEVELS[from][0] * LEVELS[from][1]) / (LEVELS[to][0] * LEVELS[to][1]);
+    }
+}
@@ -1,86 +1,487 @@
 package edu.neumont.csc150.view;
 
 import edu.neumont.csc150.controller.GameController;
-import edu.neumont.csc150.controller.RenderController;
 import edu.neumont.csc150.model.colliders.HitBox;
+import edu.neumont.csc150.model.enums.RenderMode;
+import edu.neumont.csc150.model.enums.SceneType;
 import edu.neumont.csc150.model.misc.Color;
 import edu.neumont.csc150.model.misc.raycast.*;
 import edu.neumont.csc150.service.*;
 import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
+import org.jline.utils.InfoCmp;
 
 import java.io.IOException;
-import java.io.Writer;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class SceneRenderer extends UITask {
+    /** Unchanged cells between two changed ones that are still rewritten instead of moving the cursor */
+    private final int MAX_UNCHANGED_GAP = 4;
+    /** Runs of the same cell longer than this use the repeat escape, "`e[{n}b" */
+    private final int MIN_REPEAT_ESCAPE = 5;
+    /** Neighbours further apart than this, as a fraction of the nearest one, don't fill the cell between them */
+    private final float MAX_NEIGHBOUR_DEPTH_DIFFERENCE = 0.1f;
+    private final int[][] NEIGHBOURS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+
     private final Terminal terminal;
-    private final Writer writer;
+    private final FrameEncoder encoder;
+    /** Terminals without the repeat escape would draw each repeated run one cell long */
+    private final boolean repeatEscapes;
 
     private final CollisionService collisionService;
     private final ConfigService configService;
-    private final Thread[] workerThreads;
+    private final ForkJoinPool workerPool;
+    private final int tileColumns;
+    private final int tileCount;
+    /** Published once per frame, workers only ever read from this */
+    private volatile SceneSnapshot snapshot;
+    private volatile RenderMode renderMode = RenderMode.RAYCAST;
+    private final ResolutionGovernor governor;
+    private final Foveation foveation;
+    private final SpriteRasterizer spriteRasterizer;
+    private final QuadRasterizer quadRasterizer;
+    /** How many columns and rows each traced cell covers this frame */
+    private int columnStep = 1;
+    private int rowStep = 1;
+    /** Where each traced column starts in column mode, followed by the screen's width */
+    private int[] columnStarts;
+    /** Which half of the checkerboard is traced this frame, it swaps every frame */
+    private int checkerboardParity;
+    /** How long the last frame took to trace and encode, in nanoseconds */
+    private long traceTime;
+    private volatile long encodeTime;
+
+    // region Temporal Reuse
+    /** Traced cells are kept between frames, so they can be reused while the camera stands still */
+    private final long[][] tracedCells;
+    /** Which collider each traced cell hit, by its index in the snapshot. -1 where nothing was hit */
+    private final int[][] hitIds;
+    /** How far away each traced cell's hit was */
+    private final float[][] tracedDepths;
+    private SceneSnapshot previousFrame;
+    private RenderMode previousMode;
+    private int previousColumnStep;
+    private int previousRowStep;
+    /** Set when this frame only retraces the cells touched by changed colliders */
+    private boolean reuseCells;
+    private boolean[] changedColliders;
+    private float[][] changedBounds;
+    // endregion
+
+    // region Overlay Coverage
+    /** Cells the overlay draws over with opaque pixels this frame, they're never seen so they aren't traced */
+    private final boolean[][] overlayCoverage;
+    /** The coverage the traced cells were last traced under, the cells only it covered hold nothing */
+    private final boolean[][] tracedCoverage;
+    // endregion
+    /** How far away whatever is drawn in each cell of the frame is, sprites are only drawn in front of it */
+    private final float[][] frameDepths;
+    /** What the terminal is currently showing, used to only write the cells that changed */
+    private long[][] emittedFrame;
+    /** Set when the terminal no longer shows emittedFrame, like after it's resized */
+    private volatile boolean emittedFrameStale;
+    private int framesSinceFullFrame;
 
     public SceneRenderer(int screenWidth, int screenHeight, Injectable color, Injectable collision, Injectable config) {
         super(color);
 
         try {
             terminal = TerminalBuilder.builder().system(true).build();
-            writer = terminal.writer();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
+        // Resizing can reflow or clear what the terminal shows, so the next frame is written in full
+        terminal.handle(Terminal.Signal.WINCH, _ -> emittedFrameStale = true);
+
         frameBuffer = new long[screenHeight][screenWidth];
+        tracedCells = new long[screenHeight][screenWidth];
+        hitIds = new int[screenHeight][screenWidth];
+        for (int[] row : hitIds)
+            Arrays.fill(row, -1);
+
+        tracedDepths = new float[screenHeight][screenWidth];
+        frameDepths = new float[screenHeight][screenWidth];
+        overlayCoverage = new boolean[screenHeight][screenWidth];
+        tracedCoverage = new boolean[screenHeight][screenWidth];
+
+        encoder = new FrameEncoder(color, screenWidth, screenHeight);
         collisionService = (CollisionService) collision;
         configService = (ConfigService) config;
-        workerThreads = new Thread[configService.sceneWorkerThreadCount];
-    }
-
-    public void initializeWorkerThreads(Object syncTo) {
-        if (configService.screenWidth % configService.sceneWorkerThreadCount != 0)
-            throw new RuntimeException("The screen's width must be divisible by the amount of worker threads.\n" +
-                    "Screen Width: " + configService.screenWidth + "\tWorkers: " + configService.sceneWorkerThreadCount);
-
-        int threadCount = configService.sceneWorkerThreadCount;
-        int colsToRender = configService.screenWidth / threadCount;
-
-        for (int t = 0; t < threadCount; t++) {
-            int finalT = t;
-            int startCoordinate = colsToRender * t;
-            int endCoordinate = colsToRender * (t + 1);
-
-            workerThreads[t] = new Thread(() -> {
-                while (true) {
-                    synchronized (syncTo) {
-                        if (RenderController.workersFinished[finalT]) continue;
-
-                        synchronized (collisionService.getHitBoxes()) {
-                            for (int x = 0; x < frameBuffer.length; x++) {
-                                for (int y = startCoordinate; y < endCoordinate; y++) {
-                                    if (GameController.camera == null) break;
-                                    HitInfo<HitBox> hit = collisionService.raycastHit(GameController.camera.rays[x][y]);
-                                    byte brightness;
-                                    Color color;
-
-                                    if (hit != null) {
-                                        brightness = colorService.getBrightnessFromDistance(hit.getDistance(), configService.brightness);
-                                        color = hit.getColor();
-                                    } else continue;
-
-                                    frameBuffer[x][y] = colorService.getColoredBrightness(color, brightness);
-                                }
-                            }
-                        }
-
-                        RenderController.workersFinished[finalT] = true;
-                    }
+        repeatEscapes = configService.repeatCharacterEscapes
+                && terminal.getStringCapability(InfoCmp.Capability.repeat_char) != null;
+        workerPool = new ForkJoinPool(configService.sceneWorkerThreadCount);
+        governor = new ResolutionGovernor(config);
+        foveation = new Foveation(config, screenWidth, screenHeight);
+        spriteRasterizer = new SpriteRasterizer(color, config);
+        quadRasterizer = new QuadRasterizer(color, config);
+
+        // Tiles on the right and bottom edges are cut short, so any resolution works
+        int tileRows = (screenHeight + configService.renderTileHeight - 1) / configService.renderTileHeight;
+        tileColumns = (screenWidth + configService.renderTileWidth - 1) / configService.renderTileWidth;
+        tileCount = tileRows * tileColumns;
+    }
+
+    /**
+     * Levels are only made of upright walls, so they can be rendered column by column.
+     * Rasterizing works for every scene, so it's used everywhere once it's turned on
+     */
+    public void selectRenderMode(SceneType scene) {
+        if (configService.rasterRendering) {
+            renderMode = RenderMode.RASTER;
+            return;
+        }
+
+        renderMode = switch (scene) {
+            case FIRST_FLOOR, SECOND_FLOOR, GALLERY, BOSS_ROOM ->
+                    configService.columnRendering ? RenderMode.COLUMNS : RenderMode.RAYCAST;
+            default -> RenderMode.RAYCAST;
+        };
+    }
+
+    /** Copies the scene for the next frame, this must happen before the workers are released */
+    public void beginFrame() {
+        if (traceTime > 0) {
+            governor.frameFinished(traceTime + encodeTime);
+            traceTime = 0;
+        }
+
+        columnStep = governor.getColumnStep();
+        rowStep = governor.getRowStep();
+        columnStarts = foveation.layoutColumns(columnStep, frameBuffer[0].length);
+        snapshot = collisionService.takeSnapshot(GameController.camera);
+    }
+
+    /**
+     * Traces every tile of the frame on the worker pool.
+     * Idle workers steal tiles from busy ones, and this only returns once every tile is done.
+     * In column mode every traced column of the screen is its own tile.
+     * In raster mode every quad is projected first, then each tile is filled from the projections.
+     */
+    public void renderScene() {
+        SceneSnapshot frame = snapshot;
+        if (frame == null || !frame.hasCamera()) {
+            previousFrame = null;
+            return;
+        }
+
+        long traceStart = System.nanoTime();
+        RenderMode mode = renderMode;
+        // Rasterizing the whole frame is cheaper than finding what changed,
+        // and cells the overlay stopped covering were never traced
+        reuseCells = configService.temporalReuse &&
+                mode != RenderMode.RASTER &&
+                Arrays.deepEquals(overlayCoverage, tracedCoverage) &&
+                mode == previousMode &&
+                columnStep == previousColumnStep &&
+                rowStep == previousRowStep &&
+                frame.hasSameView(previousFrame);
+
+        // Nothing has to be traced if the camera and every collider stood still
+        if (!reuseCells || findChangedColliders(frame)) {
+            int tiles = mode == RenderMode.COLUMNS ? columnStarts.length - 1 : tileCount;
+
+            if (mode == RenderMode.RASTER) quadRasterizer.prepare(frame);
+            checkerboardParity ^= 1;
+            workerPool.invoke(new TileTask(frame, mode, 0, tiles));
+        }
+
+        for (int x = 0; x < frameBuffer.length; x++)
+            System.arraycopy(overlayCoverage[x], 0, tracedCoverage[x], 0, frameBuffer[x].length);
+
+        previousFrame = frame;
+        previousMode = mode;
+        previousColumnStep = columnStep;
+        previousRowStep = rowStep;
+
+        for (int x = 0; x < frameBuffer.length; x++) {
+            for (int y = 0; y < frameBuffer[x].length; y++) {
+                frameDepths[x][y] = Float.MAX_VALUE;
+                if (hitIds[x][y] < 0 || overlayCoverage[x][y]) continue;
+
+                frameBuffer[x][y] = tracedCells[x][y];
+                frameDepths[x][y] = tracedDepths[x][y];
+            }
+        }
+
+        // Sprites aren't part of the traced cells, so they're drawn over them every frame
+        spriteRasterizer.draw(frame, frameBuffer, frameDepths);
+
+        traceTime = System.nanoTime() - traceStart;
+    }
+
+    /** @return Returns "true" if any collider moved or changed since the previous frame */
+    private boolean findChangedColliders(SceneSnapshot frame) {
+        changedColliders = new boolean[frame.getBoundingVolumes().size()];
+        List<float[]> bounds = new ArrayList<>();
+
+        for (int collider = 0; collider < changedColliders.length; collider++) {
+            if (frame.isSplitSprite(collider) || !frame.hasChanged(previousFrame, collider)) continue;
+
+            changedColliders[collider] = true;
+            float[] colliderBounds = new float[6];
+            frame.getBounds(collider, colliderBounds);
+            bounds.add(colliderBounds);
+        }
+
+        changedBounds = bounds.toArray(new float[0][]);
+        return !bounds.isEmpty();
+    }
+
+    /**
+     * While reusing cells, only the ones that hit a changed collider last frame,
+     * or that a changed collider could have moved in front of, are traced again
+     */
+    private boolean needsTrace(SceneSnapshot frame, int x, int y) {
+        if (!reuseCells) return true;
+
+        int id = hitIds[x][y];
+        if (id >= 0 && changedColliders[id]) return true;
+
+        for (float[] bounds : changedBounds) {
+            if (frame.rayHitsBounds(x, y, bounds)) return true;
+        }
+
+        return false;
+    }
+
+    private void renderTile(SceneSnapshot frame, int tile) {
+        int startRow = tile / tileColumns * configService.renderTileHeight;
+        int startColumn = tile % tileColumns * configService.renderTileWidth;
+        int endRow = Math.min(startRow + configService.renderTileHeight, frameBuffer.length);
+        int endColumn = Math.min(startColumn + configService.renderTileWidth, frameBuffer[0].length);
+        // Tiles away from the center of the screen are traced coarser
+        int foveaStep = foveation.getStep((startRow + endRow) / 2f, (startColumn + endColumn) / 2f);
+        int tileRowStep = rowStep * foveaStep;
+        int tileColumnStep = columnStep * foveaStep;
+
+        if (configService.checkerboardRendering && !reuseCells && tileRowStep == 1 && tileColumnStep == 1) {
+            renderCheckerboard(frame, startRow, startColumn, endRow, endColumn);
+            return;
+        }
+
+        // At lower resolutions one ray is traced per block and copied over the rest of it
+        for (int x = startRow; x < endRow; x += tileRowStep) {
+            for (int y = startColumn; y < endColumn; y += tileColumnStep) {
+                int blockEndRow = Math.min(x + tileRowStep, endRow);
+                int blockEndColumn = Math.min(y + tileColumnStep, endColumn);
+                if (isCovered(x, y, blockEndRow, blockEndColumn) || !needsTrace(frame, x, y)) continue;
+
+                storeHit(frame, x, y, blockEndRow, blockEndColumn, collisionService.raycastHit(frame, x, y));
+            }
+        }
+    }
+
+    /**
+     * Traces half of a tile's cells in a checkerboard. Every other cell is filled from the cells around it
+     * when they all hit the same collider at about the same distance, and is traced when they don't.
+     * Only neighbours inside the tile are used, so the workers never wait on each other.
+     */
+    private void renderCheckerboard(SceneSnapshot frame, int startRow, int startColumn, int endRow, int endColumn) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        HitInfo<HitBox>[][] hits = new HitInfo[endRow - startRow][endColumn - startColumn];
+
+        for (int x = startRow; x < endRow; x++) {
+            for (int y = startColumn; y < endColumn; y++) {
+                if ((x + y & 1) != checkerboardParity || overlayCoverage[x][y]) continue;
+
+                hits[x - startRow][y - startColumn] = collisionService.raycastHit(frame, x, y);
+                storeHit(frame, x, y, x + 1, y + 1, hits[x - startRow][y - startColumn]);
+            }
+        }
+
+        for (int x = startRow; x < endRow; x++) {
+            for (int y = startColumn; y < endColumn; y++) {
+                if ((x + y & 1) == checkerboardParity || overlayCoverage[x][y]) continue;
+
+                if (neighboursAgree(hits, startRow, startColumn, x, y))
+                    storeHit(frame, x, y, x + 1, y + 1, averageNeighbours(hits, startRow, startColumn, x, y));
+                else
+                    storeHit(frame, x, y, x + 1, y + 1, collisionService.raycastHit(frame, x, y));
+            }
+        }
+    }
+
+    /**
+     * True if at least 2 traced neighbours are inside the tile, and they hit the same collider at about the same distance.
+     * Neighbours under the overlay weren't traced, so they don't count
+     */
+    private boolean neighboursAgree(HitInfo<HitBox>[][] hits, int startRow, int startColumn, int x, int y) {
+        HitInfo<HitBox> first = null;
+        int count = 0;
+        float nearest = Float.MAX_VALUE;
+        float furthest = 0;
+
+        for (int[] offset : NEIGHBOURS) {
+            int neighbourRow = x - startRow + offset[0];
+            int neighbourColumn = y - startColumn + offset[1];
+            if (neighbourRow < 0 || neighbourColumn < 0 || neighbourRow >= hits.length || neighbourColumn >= hits[0].length)
+                continue;
+
+            if (overlayCoverage[x + offset[0]][y + offset[1]]) continue;
+
+            HitInfo<HitBox> hit = hits[neighbourRow][neighbourColumn];
+            if (count++ == 0) first = hit;
+            else if ((hit == null) != (first == null) || (hit != null && hit.getCollision() != first.getCollision()))
+                return false;
+
+            if (hit == null) continue;
+
+            nearest = Math.min(nearest, hit.getDistance());
+            furthest = Math.max(furthest, hit.getDistance());
+        }
+
+        return count >= 2 && (first == null || furthest - nearest <= MAX_NEIGHBOUR_DEPTH_DIFFERENCE * nearest);
+    }
+
+    /** The first neighbour's hit at the average distance of them all, "null" if none of them hit anything */
+    private HitInfo<HitBox> averageNeighbours(HitInfo<HitBox>[][] hits, int startRow, int startColumn, int x, int y) {
+        HitInfo<HitBox> first = null;
+        float totalDistance = 0;
+        int count = 0;
+
+        for (int[] offset : NEIGHBOURS) {
+            int neighbourRow = x - startRow + offset[0];
+            int neighbourColumn = y - startColumn + offset[1];
+            if (neighbourRow < 0 || neighbourColumn < 0 || neighbourRow >= hits.length || neighbourColumn >= hits[0].length)
+                continue;
+
+            if (overlayCoverage[x + offset[0]][y + offset[1]]) continue;
+
+            HitInfo<HitBox> hit = hits[neighbourRow][neighbourColumn];
+            if (hit == null) return null;
+
+            if (first == null) first = hit;
+            totalDistance += hit.getDistance();
+            count++;
+        }
+
+        return new HitInfo<>(first.getHitPosition(), first.getColor(), totalDistance / count, first.getCollision());
+    }
+
+    /** Rasterizing is cheap enough that it always runs at full resolution */
+    private void rasterizeTile(SceneSnapshot frame, int tile) {
+        int startRow = tile / tileColumns * configService.renderTileHeight;
+        int startColumn = tile % tileColumns * configService.renderTileWidth;
+        int endRow = Math.min(startRow + configService.renderTileHeight, frameBuffer.length);
+        int endColumn = Math.min(startColumn + configService.renderTileWidth, frameBuffer[0].length);
+
+        quadRasterizer.drawTile(frame, startRow, startColumn, endRow, endColumn, tracedCells, hitIds, tracedDepths);
+    }
+
+    private void renderColumn(SceneSnapshot frame, int tile) {
+        int y = columnStarts[tile];
+        // Every row is cheap in column mode, so only the columns are lowered
+        int endColumn = columnStarts[tile + 1];
+
+        // Only a few cells change while reusing, so those are traced one by one
+        if (reuseCells) {
+            for (int x = 0; x < frameBuffer.length; x++) {
+                if (!isCovered(x, y, x + 1, endColumn) && needsTrace(frame, x, y))
+                    storeHit(frame, x, y, x + 1, endColumn, collisionService.raycastHit(frame, x, y));
+            }
+
+            return;
+        }
+
+        // Rows below the last one the overlay leaves uncovered aren't traced at all
+        int rows = frameBuffer.length;
+        while (rows > 0 && isCovered(rows - 1, y, rows, endColumn))
+            rows--;
+
+        if (rows == 0) return;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        HitInfo<HitBox>[] hits = new HitInfo[rows];
+        collisionService.raycastColumn(frame, y, hits);
+
+        for (int x = 0; x < hits.length; x++)
+            storeHit(frame, x, y, x + 1, endColumn, hits[x]);
+    }
+
+    /** True if the overlay covers every cell from (x, y) up to, but not including, (endRow, endColumn) */
+    private boolean isCovered(int x, int y, int endRow, int endColumn) {
+        for (int row = x; row < endRow; row++) {
+            for (int column = y; column < endColumn; column++) {
+                if (!overlayCoverage[row][column]) return false;
+            }
+        }
+
+        return true;
+    }
+
+    /** Fills every traced cell from (x, y) up to, but not including, (endRow, endColumn) with the hit */
+    private void storeHit(SceneSnapshot frame, int x, int y, int endRow, int endColumn, HitInfo<HitBox> hit) {
+        int id = -1;
+        long cell = 0;
+        float depth = 0;
+
+        if (hit != null) {
+            byte brightness = colorService.getBrightnessFromDistance(hit.getDistance(), configService.brightness);
+            cell = colorService.getColoredBrightness(hit.getColor(), brightness);
+            id = frame.indexOf(hit.getCollision());
+            depth = hit.getDistance();
+        }
+
+        for (int row = x; row < endRow; row++) {
+            for (int column = y; column < endColumn; column++) {
+                tracedCells[row][column] = cell;
+                hitIds[row][column] = id;
+                tracedDepths[row][column] = depth;
+            }
+        }
+    }
+
+    /** Splits a range of tiles in half until there is only one left to trace */
+    private class TileTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        /** Tasks only ever live inside one frame, they're never serialized */
+        private final transient SceneSnapshot frame;
+        private final RenderMode mode;
+        private final int startTile;
+        private final int endTile;
+
+        private TileTask(SceneSnapshot frame, RenderMode mode, int startTile, int endTile) {
+            this.frame = frame;
+            this.mode = mode;
+            this.startTile = startTile;
+            this.endTile = endTile;
+        }
+
+        @Override
+        protected void compute() {
+            if (endTile - startTile == 1) {
+                switch (mode) {
+                    case COLUMNS -> renderColumn(frame, startTile);
+                    case RASTER -> rasterizeTile(frame, startTile);
+                    case RAYCAST -> renderTile(frame, startTile);
                 }
-            });
 
-            workerThreads[t].start();
+                return;
+            }
+
+            int middle = (startTile + endTile) / 2;
+            invokeAll(
+                    new TileTask(frame, mode, startTile, middle),
+                    new TileTask(frame, mode, middle, endTile)
+            );
         }
     }
 
+    /**
+     * Cleared and filled in by the overlay before each frame is traced.
+     * Workers skip the cells it covers, and the overlay is drawn over them afterwards
+     */
+    public boolean[][] getOverlayCoverage() {
+        return overlayCoverage;
+    }
+
     public void clearBackground(Color color, byte brightness) {
         for (int x = 0; x < frameBuffer.length; x++) {
             for (int y = 0; y < frameBuffer[x].length; y++) {
@@ -89,51 +490,109 @@ public class SceneRenderer extends UITask {
         }
     }
 
-    public void endDrawing() {
-        StringBuilder sb = new StringBuilder(frameBuffer.length * frameBuffer[0].length * 3);
-        long previousColor = -1;
+    /** Synchronized since scene changes can also draw a frame while the render loop is running */
+    public synchronized void endDrawing() {
+        long encodeStart = System.nanoTime();
+        encoder.beginFrame(frameBuffer[0].length, frameBuffer.length);
+
+        if (configService.deltaFrameOutput) encodeChanges();
+        else encodeFrame();
+
+        encoder.flush();
+        encodeTime = System.nanoTime() - encodeStart;
+    }
+
+    private void encodeFrame() {
+        encoder.cursorHome();
+
+        for (long[] row : frameBuffer) {
+            for (long cell : row) {
+                encoder.color(cell);
+                encoder.character(colorService.getUncoloredCharacter(cell));
+            }
+
+            encoder.newline();
+        }
+    }
+
+    /**
+     * Only encodes the cells that changed since the last frame. Each changed run is
+     * placed with a cursor position escape, and repeated cells are shortened with
+     * the repeat escape. Nothing is written if the frame didn't change.
+     * <br>
+     * Anything else written to the terminal isn't in emittedFrame, so the whole
+     * frame is written again every fullFrameInterval frames and after a resize.
+     */
+    private void encodeChanges() {
+        boolean resized = emittedFrame == null || emittedFrame.length != frameBuffer.length || emittedFrame[0].length != frameBuffer[0].length;
+        if (resized) emittedFrame = new long[frameBuffer.length][frameBuffer[0].length];
+
+        if (resized || emittedFrameStale || ++framesSinceFullFrame >= configService.fullFrameInterval) {
+            emittedFrameStale = false;
+            framesSinceFullFrame = 0;
+
+            // Nothing matches -1, so the whole frame is written
+            for (long[] row : emittedFrame)
+                Arrays.fill(row, -1);
+        }
 
         for (int x = 0; x < frameBuffer.length; x++) {
-            for (int y = 0; y < frameBuffer[x].length; y++) {
-                char character = colorService.getUncoloredCharacter(frameBuffer[x][y]);
-
-                if (ColorService.FULL_ANSI_COLOR_SUPPORT) {
-                    long color = colorService.getANSIColor(frameBuffer[x][y]);
-                    if (previousColor != color) {
-                        sb.append(colorService.getANSIColorString(color));
-                        previousColor = color;
-                    }
-                } else {
-                    Color color = colorService.getColor(frameBuffer[x][y]);
-                    if (previousColor != color.toLong()) {
-                        sb.append(colorService.getRawColorCode(color.getConsoleColor()));
-                        previousColor = color.toLong();
-                    }
+            long[] row = frameBuffer[x];
+            long[] emittedRow = emittedFrame[x];
+            int y = 0;
+
+            while (y < row.length) {
+                if (row[y] == emittedRow[y]) {
+                    y++;
+                    continue;
                 }
 
-                sb.append(character);
+                // Short gaps of unchanged cells are cheaper to rewrite than to jump over
+                int end = y + 1;
+                for (int unchanged = 0, next = y + 1; next < row.length && unchanged <= MAX_UNCHANGED_GAP; next++) {
+                    if (row[next] != emittedRow[next]) {
+                        end = next + 1;
+                        unchanged = 0;
+                    } else unchanged++;
+                }
 
-                if (y == frameBuffer[x].length - 1)
-                    sb.append('\n');
+                encoder.cursorPosition(x, y);
+                encodeRun(row, y, end);
+                System.arraycopy(row, y, emittedRow, y, end - y);
+                y = end;
             }
         }
+    }
 
-        try {
-            writer.write("\033[H");
-            writer.write(sb.toString());
-            writer.flush();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private void encodeRun(long[] row, int start, int end) {
+        int y = start;
+
+        while (y < end) {
+            long cell = row[y];
+            int repeat = 1;
+            while (y + repeat < end && row[y + repeat] == cell)
+                repeat++;
+
+            char character = colorService.getUncoloredCharacter(cell);
+            encoder.color(cell);
+            encoder.character(character);
+
+            if (repeatEscapes && repeat > MIN_REPEAT_ESCAPE)
+                encoder.repeat(repeat - 1);
+            else {
+                for (int i = 1; i < repeat; i++)
+                    encoder.character(character);
+            }
+
+            y += repeat;
         }
     }
 
     public void shutdownPool() {
-        for (Thread worker : workerThreads)
-            worker.interrupt();
+        workerPool.shutdownNow();
 
         try {
             terminal.close();
-            writer.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
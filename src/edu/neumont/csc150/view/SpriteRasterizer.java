@@ -0,0 +1,140 @@
+package edu.neumont.csc150.view;
+
+import edu.neumont.csc150.model.colliders.SpriteCollider;
+import edu.neumont.csc150.model.misc.Texture;
+import edu.neumont.csc150.model.misc.Vector3;
+import edu.neumont.csc150.model.misc.raycast.ColliderGeometry;
+import edu.neumont.csc150.model.misc.raycast.SceneSnapshot;
+import edu.neumont.csc150.service.ColorService;
+import edu.neumont.csc150.service.ConfigService;
+import edu.neumont.csc150.service.Injectable;
+
+/**
+ * Draws a frame's sprites over the traced scene.
+ * <br>
+ * Instead of every ray testing every sprite, each sprite only visits the cells its bounds cover on the screen.
+ * Each of those cells meets the sprite's plane along its ray, and is only drawn if that is in front of
+ * whatever the ray already hit there. Far away sprites sample a smaller mip level, so they don't shimmer.
+ */
+public class SpriteRasterizer {
+    private final ColorService colorService;
+    private final ConfigService configService;
+    private final float[] bounds = new float[6];
+    private final int[] range = new int[4];
+
+    public SpriteRasterizer(Injectable color, Injectable config) {
+        colorService = (ColorService) color;
+        configService = (ConfigService) config;
+    }
+
+    /**
+     * @param depths How far away each cell's ray hit something, Float.MAX_VALUE where it hit nothing.
+     *               Every cell a sprite is drawn in is moved up to the sprite
+     */
+    public void draw(SceneSnapshot frame, long[][] frameBuffer, float[][] depths) {
+        int[] sprites = frame.getSprites();
+        if (sprites.length == 0) return;
+
+        // How far apart neighbouring rays are one unit away from the camera, in the middle of the screen
+        int middleRow = frameBuffer.length / 2;
+        int middleColumn = frameBuffer[0].length / 2;
+        float columnSpread = raySpread(frame, middleRow, middleColumn, middleRow, Math.min(middleColumn + 1, frameBuffer[0].length - 1));
+        float rowSpread = raySpread(frame, middleRow, middleColumn, Math.min(middleRow + 1, frameBuffer.length - 1), middleColumn);
+
+        // Sprites are sorted nearest first, so the ones behind them skip most of their cells
+        for (int sprite : sprites)
+            drawSprite(frame, sprite, frameBuffer, depths, columnSpread, rowSpread);
+    }
+
+    private void drawSprite(
+            SceneSnapshot frame,
+            int collider,
+            long[][] frameBuffer,
+            float[][] depths,
+            float columnSpread,
+            float rowSpread
+    ) {
+        frame.getBounds(collider, bounds);
+        if (!frame.getScreenRange(bounds, range)) return;
+
+        ColliderGeometry geometry = frame.getGeometry();
+        SpriteCollider sprite = (SpriteCollider) frame.getHitBox(collider);
+        Vector3 origin = frame.getCameraPosition();
+        float rayDistance = frame.getRayDistance();
+        int quad = geometry.getQuadStart(collider);
+
+        float centerX = geometry.getCenter(collider, 0);
+        float centerY = geometry.getCenter(collider, 1);
+        float centerZ = geometry.getCenter(collider, 2);
+        float rightX = geometry.getRight(collider, 0);
+        float rightY = geometry.getRight(collider, 1);
+        float rightZ = geometry.getRight(collider, 2);
+        float scaleX = geometry.getScale(collider, 0);
+        float scaleY = geometry.getScale(collider, 1);
+
+        float centerDistance = (float) Math.sqrt(
+                (centerX - origin.x) * (centerX - origin.x) +
+                (centerY - origin.y) * (centerY - origin.y) +
+                (centerZ - origin.z) * (centerZ - origin.z)
+        );
+        Texture image = pickMipLevel(frame.getImage(collider), centerDistance, scaleX, scaleY, columnSpread, rowSpread);
+
+        // Every ray starts this far in front of the sprite's plane, and moves towards it at its own rate
+        float originDistance = geometry.planeDistance(quad, origin.x, origin.y, origin.z);
+
+        for (int x = range[0]; x <= range[2]; x++) {
+            for (int y = range[1]; y <= range[3]; y++) {
+                float directionX = frame.getRayDirection(x, y, 0);
+                float directionY = frame.getRayDirection(x, y, 1);
+                float directionZ = frame.getRayDirection(x, y, 2);
+
+                float approach = geometry.planeDistance(
+                        quad,
+                        origin.x + directionX,
+                        origin.y + directionY,
+                        origin.z + directionZ
+                ) - originDistance;
+                if (Math.abs(approach) < 1e-6) continue;
+
+                float distance = -originDistance / approach;
+                if (distance < 0 || distance > rayDistance || distance >= depths[x][y]) continue;
+
+                // Where the ray meets the plane, relative to the sprite's center and stretched to -1 to 1
+                float offsetX = origin.x + directionX * distance - centerX;
+                float offsetY = origin.y + directionY * distance - centerY;
+                float offsetZ = origin.z + directionZ * distance - centerZ;
+                float u = (offsetX * rightX + offsetY * rightY + offsetZ * rightZ) * 2 / scaleX;
+                float v = offsetY * 2 / scaleY;
+                if (u < -1 || u > 1 || v < -1 || v > 1) continue;
+
+                long color = sprite.sample(image, u, v);
+                if (color == Texture.TRANSPARENT) continue;
+
+                byte brightness = colorService.getBrightnessFromDistance(distance, configService.brightness);
+                frameBuffer[x][y] = colorService.getColoredBrightness(color, brightness);
+                depths[x][y] = distance;
+            }
+        }
+    }
+
+    /** The largest mip level that still has at least one texel for every cell the sprite covers */
+    private Texture pickMipLevel(Texture image, float distance, float scaleX, float scaleY, float columnSpread, float rowSpread) {
+        float across = image.getWidth() * distance * columnSpread / scaleX;
+        float down = image.getHeight() * distance * rowSpread / scaleY;
+        float texelsPerCell = Math.min(across, down);
+        if (!(texelsPerCell >= 2)) return image;
+
+        int level = 31 - Integer.numberOfLeadingZeros((int) Math.min(texelsPerCell, Integer.MAX_VALUE));
+        return image.getMipLevel(level);
+    }
+
+    private float raySpread(SceneSnapshot frame, int x1, int y1, int x2, int y2) {
+        float spread = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            float difference = frame.getRayDirection(x2, y2, axis) - frame.getRayDirection(x1, y1, axis);
+            spread += difference * difference;
+        }
+
+        return (float) Math.sqrt(spread);
+    }
+}
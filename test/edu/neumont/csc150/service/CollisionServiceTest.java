@@ -0,0 +1,265 @@
+package edu.neumont.csc150.service;
+
+import edu.neumont.csc150.model.colliders.BoxCollider;
+import edu.neumont.csc150.model.colliders.HitBox;
+import edu.neumont.csc150.model.colliders.SphereCollider;
+import edu.neumont.csc150.model.enums.CollisionLayer;
+import edu.neumont.csc150.model.enums.RenderLayer;
+import edu.neumont.csc150.model.misc.Vector3;
+import edu.neumont.csc150.model.misc.raycast.HitInfo;
+
+import java.util.Random;
+
+/**
+ * Checks the box-box and sphere-box narrowphase in isColliding against a double precision reference.
+ * <br>
+ * Boxes only rotate around Y, so the reference is a separating axis test on both boxes' face normals,
+ * and the exact closest point for spheres. It's built from each box's position, size and rotation
+ * instead of its cached axes. Random pairs use a fixed seed so every run tests the same ones.
+ * <br>
+ * Run with "java -cp {classes} edu.neumont.csc150.service.CollisionServiceTest", it exits with 1 if anything fails.
+ */
+public class CollisionServiceTest {
+    private static final long SEED = 12;
+    private static final int RANDOM_PAIRS = 100_000;
+    /** Pairs the reference puts closer than this to touching are skipped, float rounding can go either way */
+    private static final double TOLERANCE = 1e-3;
+    private static final CollisionLayer[] LAYERS = { CollisionLayer.ENVIRONMENT };
+
+    private final CollisionService collisionService = new CollisionService(new ConfigService());
+    private int failures;
+
+    public static void main(String[] args) {
+        CollisionServiceTest test = new CollisionServiceTest();
+
+        test.diagonalBoxOverlap();
+        test.rotatedBoxCorner();
+        test.sphereAtEndOfLongBox();
+        test.sphereNearBoxEdge();
+        test.sphereNearBoxCorner();
+        test.sphereNormal();
+        test.randomBoxPairs();
+        test.randomSpherePairs();
+
+        if (test.failures > 0) {
+            System.out.println(test.failures + " checks failed");
+            System.exit(1);
+        }
+
+        System.out.println("All checks passed");
+    }
+
+    // region Regressions
+    /** The old early-out compared against the sum of the squared half diagonals, which rejected this pair */
+    private void diagonalBoxOverlap() {
+        BoxCollider first = box(0, 0, 0, 0, 1, 1, 1);
+        BoxCollider second = box(0.9f, 0.9f, 0.9f, 0, 1, 1, 1);
+
+        check("diagonal box overlap", collides(first, second), true);
+        check("diagonal box overlap, swapped", collides(second, first), true);
+    }
+
+    private void rotatedBoxCorner() {
+        BoxCollider first = box(0, 0, 0, 0, 1, 1, 1);
+
+        check("rotated corner inside", collides(first, box(1.15f, 0, 0, 45, 1, 1, 1)), true);
+        check("rotated corner outside", collides(first, box(1.25f, 0, 0, 45, 1, 1, 1)), false);
+    }
+
+    /** The old early-out rejected this too, the sphere is far from the center but close to the end face */
+    private void sphereAtEndOfLongBox() {
+        BoxCollider box = box(0, 0, 0, 0, 4, 1, 1);
+
+        check("sphere at end of long box", collides(box, sphere(2.5f, 0, 0, 1)), true);
+        check("sphere at end of long box, swapped", collides(sphere(2.5f, 0, 0, 1), box), true);
+    }
+
+    /** Overlaps on every face normal, but is further than its radius from the edge, the old face-only test hit it */
+    private void sphereNearBoxEdge() {
+        BoxCollider box = box(0, 0, 0, 0, 1, 1, 6);
+
+        check("sphere near box edge", collides(box, sphere(0.9f, 0.9f, 0, 0.5f)), false);
+        check("sphere near box edge, swapped", collides(sphere(0.9f, 0.9f, 0, 0.5f), box), false);
+        check("sphere touching box edge", collides(box, sphere(0.8f, 0.8f, 0, 0.5f)), true);
+    }
+
+    private void sphereNearBoxCorner() {
+        BoxCollider box = box(0, 0, 0, 30, 1, 1, 1);
+        Vector3 corner = box.getVerts()[6];
+        Vector3 outward = corner.subtract(box.getPosition()).normalize();
+
+        check("sphere near box corner", collides(box, sphere(corner.add(outward.scale(0.6f)), 0.5f)), false);
+        check("sphere touching box corner", collides(box, sphere(corner.add(outward.scale(0.4f)), 0.5f)), true);
+    }
+
+    private void sphereNormal() {
+        BoxCollider box = box(0, 0, 0, 0, 2, 2, 2);
+        HitInfo<?> hit = collisionService.isColliding(sphere(1.3f, 0.2f, 0, 0.5f), box, -1);
+
+        check("sphere normal hit", hit != null, true);
+        if (hit == null) return;
+
+        Vector3 normal = hit.getNormal();
+        check("sphere normal is +x", Math.abs(normal.x - 1) < 1e-5 && Math.abs(normal.y) < 1e-5 && Math.abs(normal.z) < 1e-5, true);
+    }
+    // endregion
+
+    // region Random Pairs
+    private void randomBoxPairs() {
+        Random random = new Random(SEED);
+        int mismatches = 0;
+        int tested = 0;
+
+        for (int i = 0; i < RANDOM_PAIRS; i++) {
+            double[] first = randomBox(random);
+            double[] second = randomBox(random);
+            double gap = referenceBoxGap(first, second);
+            if (Math.abs(gap) < TOLERANCE) continue;
+
+            tested++;
+            BoxCollider firstBox = box(first);
+            BoxCollider secondBox = box(second);
+            if (collides(firstBox, secondBox) != gap < 0) mismatches++;
+            remove(firstBox, secondBox);
+        }
+
+        check("random box pairs (" + tested + " tested)", mismatches, 0);
+    }
+
+    private void randomSpherePairs() {
+        Random random = new Random(SEED + 1);
+        int mismatches = 0;
+        int tested = 0;
+
+        for (int i = 0; i < RANDOM_PAIRS; i++) {
+            double[] box = randomBox(random);
+            double x = random.nextDouble() * 6 - 3;
+            double y = random.nextDouble() * 6 - 3;
+            double z = random.nextDouble() * 6 - 3;
+            double radius = 0.1 + random.nextDouble() * 1.9;
+            double gap = referenceSphereGap(box, x, y, z, radius);
+            if (Math.abs(gap) < TOLERANCE) continue;
+
+            tested++;
+            BoxCollider boxCollider = box(box);
+            SphereCollider sphere = sphere((float) x, (float) y, (float) z, (float) radius);
+            boolean expected = gap < 0;
+            if (collides(boxCollider, sphere) != expected || collides(sphere, boxCollider) != expected) mismatches++;
+            remove(boxCollider, sphere);
+        }
+
+        check("random sphere-box pairs (" + tested + " tested)", mismatches, 0);
+    }
+
+    /** x, y, z, rotation in degrees, then the size along each local axis. Every value is a float, like the colliders' */
+    private double[] randomBox(Random random) {
+        return new double[]{
+                (float) (random.nextDouble() * 6 - 3),
+                (float) (random.nextDouble() * 6 - 3),
+                (float) (random.nextDouble() * 6 - 3),
+                (float) (random.nextDouble() * 360),
+                (float) (0.2 + random.nextDouble() * 2.8),
+                (float) (0.2 + random.nextDouble() * 2.8),
+                (float) (0.2 + random.nextDouble() * 2.8)
+        };
+    }
+    // endregion
+
+    // region Reference
+    /** The box's local x, y and z axes, stored as x, y, z for each axis. Same rotation as BoxCollider.setRotation */
+    private double[] referenceAxes(double[] box) {
+        double angle = Math.toRadians(box[3]);
+        return new double[]{
+                Math.cos(angle), 0, Math.sin(angle),
+                0, 1, 0,
+                -Math.sin(angle), 0, Math.cos(angle)
+        };
+    }
+
+    /**
+     * @return Returns the largest gap between the boxes on any of their face normals,
+     * negative when they overlap on every one of them
+     */
+    private double referenceBoxGap(double[] first, double[] second) {
+        double[] firstAxes = referenceAxes(first);
+        double[] secondAxes = referenceAxes(second);
+        double gap = -Double.MAX_VALUE;
+
+        for (int axis = 0; axis < 6; axis++) {
+            double[] axes = axis < 3 ? firstAxes : secondAxes;
+            double x = axes[axis % 3 * 3];
+            double y = axes[axis % 3 * 3 + 1];
+            double z = axes[axis % 3 * 3 + 2];
+
+            double distance = Math.abs((first[0] - second[0]) * x + (first[1] - second[1]) * y + (first[2] - second[2]) * z);
+            gap = Math.max(gap, distance - reach(first, firstAxes, x, y, z) - reach(second, secondAxes, x, y, z));
+        }
+
+        return gap;
+    }
+
+    /** How far the box reaches from its center along the axis */
+    private double reach(double[] box, double[] axes, double x, double y, double z) {
+        double reach = 0;
+        for (int axis = 0; axis < 3; axis++)
+            reach += box[4 + axis] / 2 * Math.abs(axes[axis * 3] * x + axes[axis * 3 + 1] * y + axes[axis * 3 + 2] * z);
+
+        return reach;
+    }
+
+    /** @return Returns how far the sphere's surface is from the box, negative when they overlap */
+    private double referenceSphereGap(double[] box, double x, double y, double z, double radius) {
+        double[] axes = referenceAxes(box);
+        double squaredDistance = 0;
+
+        for (int axis = 0; axis < 3; axis++) {
+            double along = (x - box[0]) * axes[axis * 3] + (y - box[1]) * axes[axis * 3 + 1] + (z - box[2]) * axes[axis * 3 + 2];
+            double outside = Math.abs(along) - box[4 + axis] / 2;
+            if (outside > 0) squaredDistance += outside * outside;
+        }
+
+        return Math.sqrt(squaredDistance) - radius;
+    }
+    // endregion
+
+    private boolean collides(HitBox first, HitBox second) {
+        return collisionService.isColliding(first, second, -1) != null;
+    }
+
+    /** Every collider registers itself with the service, so the random ones are removed once they're tested */
+    private void remove(HitBox... hitBoxes) {
+        for (HitBox hitBox : hitBoxes)
+            collisionService.removeHitBox(hitBox);
+    }
+
+    private BoxCollider box(double[] box) {
+        return box((float) box[0], (float) box[1], (float) box[2], (float) box[3], (float) box[4], (float) box[5], (float) box[6]);
+    }
+
+    /** Set up in the same order as a Wall */
+    private BoxCollider box(float x, float y, float z, float rotation, float scaleX, float scaleY, float scaleZ) {
+        BoxCollider box = new BoxCollider(null, collisionService, new RenderLayer[0], LAYERS, LAYERS);
+        box.setPosition(new Vector3(x, y, z));
+        box.setScale(new Vector3(scaleX, scaleY, scaleZ));
+        box.setRotation(rotation);
+        return box;
+    }
+
+    private SphereCollider sphere(float x, float y, float z, float radius) {
+        return sphere(new Vector3(x, y, z), radius);
+    }
+
+    private SphereCollider sphere(Vector3 position, float radius) {
+        SphereCollider sphere = new SphereCollider(null, collisionService, new RenderLayer[0], LAYERS, LAYERS);
+        sphere.setPosition(position);
+        sphere.setRadius(radius);
+        return sphere;
+    }
+
+    private void check(String name, Object actual, Object expected) {
+        if (actual.equals(expected)) return;
+
+        failures++;
+        System.out.println("FAILED " + name + ": expected " + expected + " but was " + actual);
+    }
+}